@@ -0,0 +1,94 @@
+package com.kiks.dishdashapi.bench;
+
+import com.kiks.dishdashapi.config.JwtKeyProperties;
+import com.kiks.dishdashapi.service.AuthEventJournal;
+import com.kiks.dishdashapi.service.JwtClaimsCache;
+import com.kiks.dishdashapi.service.JwtKeyRing;
+import com.kiks.dishdashapi.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.util.unit.DataSize;
+
+import java.security.Key;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old filter path (three full parses, key rebuilt each time) with
+ * the single-parse {@link JwtService#verify} path, cold and with a warm claims cache,
+ * plus the public token API as the controller and filter call it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "TmV3U2VjcmV0S2V5Rm9ySldUU2lnbmluZ1B1cnBvc2VzMTIzNDU2Nzg=\r\n";
+
+    private JwtService uncached;
+    private JwtService cached;
+    private String token;
+    private UserDetails user;
+
+    @Setup
+    public void setup() {
+        JwtKeyRing keyRing = new JwtKeyRing(new JwtKeyProperties("bench", Duration.ofMinutes(30),
+                Map.of("bench", new JwtKeyProperties.Key(SECRET, null))));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AuthEventJournal journal = new AuthEventJournal(false, "unused", DataSize.ofMegabytes(1), 1, registry);
+        uncached = new JwtService(keyRing, new JwtClaimsCache(0), journal, registry);
+        cached = new JwtService(keyRing, new JwtClaimsCache(10_000), journal, registry);
+        token = uncached.generateToken("bench@dishdash.test");
+        user = User.withUsername("bench@dishdash.test").password("unused").build();
+        cached.verify(token);
+    }
+
+    @Benchmark
+    public boolean legacyTripleParse() {
+        // what JwtFilter used to do: extractUserName, then validateToken -> extractUserName + isTokenExpired
+        String username = legacyClaims(token).getSubject();
+        return legacyClaims(token).getSubject().equals(username)
+                && !legacyClaims(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public JwtService.VerifiedClaims singleParse() {
+        return uncached.verify(token);
+    }
+
+    @Benchmark
+    public JwtService.VerifiedClaims cacheHit() {
+        return cached.verify(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return uncached.generateToken("bench@dishdash.test");
+    }
+
+    @Benchmark
+    public String extractUserName() {
+        return uncached.extractUserName(token);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return uncached.validateToken(token, user);
+    }
+
+    private static Claims legacyClaims(String token) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+}
@@ -0,0 +1,67 @@
+package com.kiks.dishdashapi.bench;
+
+import com.kiks.dishdashapi.service.InMemoryOtpStore;
+import com.kiks.dishdashapi.service.OtpService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One purge pass ({@link OtpService#cleanupExpired()} minus the clock read) over a store of the
+ * given size, when every entry is due and when none is. The second case should not grow with the
+ * key count.
+ * <p>
+ * The timing wheel schedules deadlines already in the past on the next tick, so the pass runs
+ * at a fixed instant two ticks after the fill; a pass at the fill's own "now" would find nothing due.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class OtpCleanupBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int keys;
+
+    @Param({"true", "false"})
+    public boolean allDue;
+
+    // two of InMemoryOtpStore's one-second wheel ticks
+    private static final Duration PURGE_DELAY = Duration.ofSeconds(2);
+
+    private InMemoryOtpStore store;
+    private Instant purgeAt;
+
+    @Setup(Level.Iteration)
+    public void fill() {
+        store = new InMemoryOtpStore(16);
+        long now = System.currentTimeMillis();
+        purgeAt = Instant.ofEpochMilli(now).plus(PURGE_DELAY);
+
+        // issued two minutes ago (already past OTP expiry and cooldown), or just now
+        long issued = now - (allDue ? Duration.ofMinutes(2).toMillis() : 0);
+        long expires = issued + Duration.ofMinutes(1).toMillis();
+        for (int i = 0; i < keys; i++) {
+            store.issueOtp("user" + i + "@bench.test", 123456, expires, 5, expires, issued);
+        }
+    }
+
+    @Benchmark
+    public int cleanupExpired() {
+        store.purgeExpired(purgeAt);
+        return store.size();
+    }
+
+    // a pass that removed nothing (or everything) when it shouldn't have measured the wrong thing
+    @TearDown(Level.Iteration)
+    public void check() {
+        int expected = allDue ? 0 : keys;
+        if (store.size() != expected) {
+            throw new IllegalStateException("expected " + expected + " entries after the purge, found " + store.size());
+        }
+    }
+}
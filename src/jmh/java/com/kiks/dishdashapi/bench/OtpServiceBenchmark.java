@@ -0,0 +1,79 @@
+package com.kiks.dishdashapi.bench;
+
+import com.kiks.dishdashapi.service.AuthEventJournal;
+import com.kiks.dishdashapi.service.InMemoryOtpStore;
+import com.kiks.dishdashapi.service.OtpService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.unit.DataSize;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OTP request/verify throughput with several threads hitting one in-memory store.
+ * The store is rebuilt every iteration so cooldown entries from earlier iterations don't pile up.
+ * Run with the gc profiler (the benchmark profile's default) to see bytes per operation:
+ * cooldownRejected and wrongCode should stay at ~0 B/op; requestAndVerify pays for its fresh key,
+ * the new store entry and the reset token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class OtpServiceBenchmark {
+
+    private static final int HOT_KEYS = 64;
+
+    @Param({"1", "16"})
+    public int stripes;
+
+    private OtpService service;
+    private final AtomicLong keys = new AtomicLong();
+
+    // built once so the key strings don't show up in the allocation profile
+    private final String[] hotKeys = new String[HOT_KEYS];
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        service = new OtpService(new InMemoryOtpStore(stripes), new AuthEventJournal(false, "unused", DataSize.ofMegabytes(1), 1, registry), registry);
+        // every hot key is in its cooldown for the whole iteration
+        for (int i = 0; i < HOT_KEYS; i++) {
+            hotKeys[i] = "hot" + i + "@bench.test";
+            service.generateAndStoreOtp(hotKeys[i]);
+        }
+    }
+
+    /** A fresh key each time: issue, then verify with the right code. */
+    @Benchmark
+    public String requestAndVerify() {
+        String key = "user" + keys.incrementAndGet() + "@bench.test";
+        int otp = service.generateAndStoreOtp(key);
+        return service.verifyOtpAndIssueResetToken(key, OtpService.format(otp));
+    }
+
+    /** Repeated requests for a handful of keys, all rejected by the cooldown. */
+    @Benchmark
+    public int cooldownRejected(ThreadCursor cursor) {
+        return service.generateAndStoreOtp(hotKeys[cursor.next()]);
+    }
+
+    /** Guesses against the hot keys: attempts run out, later guesses find no code. */
+    @Benchmark
+    public String wrongCode(ThreadCursor cursor) {
+        return service.verifyOtpAndIssueResetToken(hotKeys[cursor.next()], "000000");
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadCursor {
+        private int i;
+
+        int next() {
+            return (i++) & (HOT_KEYS - 1);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.kiks.dishdashapi.bench;
+
+import com.kiks.dishdashapi.config.Argon2CostProfile;
+import com.kiks.dishdashapi.config.TunedArgon2PasswordEncoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw Argon2 cost per cost profile, without the bounded pool in front of it.
+ * This is the number to compare against auth.hashing.calibrate.target.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    @Param({"DEFAULT", "INTERACTIVE", "MODERATE"})
+    public Argon2CostProfile profile;
+
+    private TunedArgon2PasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void setup() {
+        encoder = new TunedArgon2PasswordEncoder(profile.toFunction());
+        hash = encoder.encode("correct horse battery staple");
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.encode("correct horse battery staple");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches("correct horse battery staple", hash);
+    }
+}
@@ -0,0 +1,335 @@
+package com.kiks.dishdashapi.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test of the /auth API against the app booted on an in-memory database.
+ * <p>
+ * Workloads are open-model: requests are started on a fixed schedule whether or not earlier ones
+ * have finished, and latency is measured from the scheduled start, so a stalled server shows up
+ * as queueing in the percentiles instead of as fewer requests (no coordinated omission).
+ * Scenarios, in order:
+ * <ul>
+ *   <li>register: creates the test accounts</li>
+ *   <li>login-storm: logins for random accounts</li>
+ *   <li>otp-campaign: request-otp for every account, then verify-otp with the delivered code</li>
+ *   <li>mixed: token-authenticated requests with some logins in between</li>
+ * </ul>
+ * Prints throughput, error rate and HDR percentiles per operation, writes the full distributions
+ * and a JSON summary to {@code -Dout}, and exits non-zero when {@code -Dmax.p99.ms} or
+ * {@code -Dmax.error.rate} is exceeded, so a release build can gate on it.
+ * <p>
+ * Run with {@code ./mvnw -Ploadtest test-compile exec:exec}; tune with -Dloadtest.users=.. -Dloadtest.rate=.. etc.
+ */
+public class AuthLoadTest {
+
+    private static final int USERS = Integer.getInteger("users", 200);
+    private static final double RATE = Double.parseDouble(System.getProperty("rate", "20"));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("duration", 10));
+    private static final boolean VIRTUAL = Boolean.getBoolean("virtual");
+    private static final Path OUT = Path.of(System.getProperty("out", "target/loadtest"));
+
+    private static final double MAX_P99_MS = Double.parseDouble(System.getProperty("max.p99.ms", "0"));
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("max.error.rate", "-1"));
+
+    private static final String JSON = "application/json";
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final Map<String, Stats> results = new LinkedHashMap<>();
+    private final CapturingNotificationSender notifications;
+    private final String base;
+
+    // latest token per account, filled by logins and used by the mixed traffic
+    private final AtomicReferenceArray<String> tokens = new AtomicReferenceArray<>(USERS);
+
+    AuthLoadTest(String base, CapturingNotificationSender notifications) {
+        this.base = base;
+        this.notifications = notifications;
+    }
+
+    public static void main(String[] args) throws Exception {
+        CapturingNotificationSender notifications = new CapturingNotificationSender();
+        AuthLoadTest test;
+
+        try (ConfigurableApplicationContext ctx = EmbeddedApp.builder("auth-load",
+                        "spring.threads.virtual.enabled=" + VIRTUAL,
+                        "notification.sender=capture",
+                        "auth.hashing.queue-capacity=10000",
+                        "auth.hashing.timeout=60s")
+                .initializers(c -> ((GenericApplicationContext) c)
+                        .registerBean(CapturingNotificationSender.class, () -> notifications))
+                .run()) {
+
+            test = new AuthLoadTest("http://localhost:" + ctx.getEnvironment().getProperty("local.server.port"),
+                    notifications);
+            test.register();
+            test.loginStorm();
+            test.otpCampaign();
+            test.mixed();
+        }
+
+        test.report(System.out);
+        test.writeResults();
+        if (!test.withinBudget()) System.exit(1);
+    }
+
+    /* ================= Scenarios ================= */
+
+    void register() {
+        openModel(RATE, USERS, (i, scheduled) -> {
+            String body = "{\"fullName\":\"Load " + i + "\",\"email\":\"" + email(i) + "\",\"password\":\"" + password(i) + "\"}";
+            send("register", "register", post("/auth/register", body), scheduled);
+        });
+    }
+
+    void loginStorm() {
+        openModel(RATE, count(RATE), (i, scheduled) -> login("login-storm", randomUser(), scheduled));
+    }
+
+    void otpCampaign() {
+        openModel(RATE, USERS, (i, scheduled) -> {
+            String email = email(i);
+            HttpResponse<String> requested = send("otp-campaign", "request-otp",
+                    post("/auth/request-otp", "{\"email\":\"" + email + "\"}"), scheduled);
+            if (requested == null) return;
+
+            String code = notifications.awaitCode(email, Duration.ofSeconds(10));
+            if (code == null) {
+                stats("otp-campaign", "verify-otp").error(-1);
+                return;
+            }
+            send("otp-campaign", "verify-otp",
+                    post("/auth/verify-otp", "{\"email\":\"" + email + "\",\"otp\":\"" + code + "\"}"), System.nanoTime());
+        });
+    }
+
+    // ~90% token-authenticated reads, ~10% logins refreshing tokens
+    void mixed() {
+        double rate = RATE * 5;
+        openModel(rate, count(rate), (i, scheduled) -> {
+            int user = randomUser();
+            String token = tokens.get(user);
+            if (token == null || i % 10 == 0) {
+                login("mixed", user, scheduled);
+            } else {
+                send("mixed", "token", HttpRequest.newBuilder(URI.create(base + "/loadtest/me"))
+                        .header("Authorization", "Bearer " + token)
+                        .GET(), scheduled);
+            }
+        });
+    }
+
+    private void login(String scenario, int user, long scheduled) {
+        String body = "{\"email\":\"" + email(user) + "\",\"password\":\"" + password(user) + "\"}";
+        HttpResponse<String> res = send(scenario, "login", post("/auth/login", body), scheduled);
+        if (res != null) tokens.set(user, res.body());
+    }
+
+    /* ================= Open-model driver ================= */
+
+    interface Operation {
+        void run(int index, long scheduledNanos) throws Exception;
+    }
+
+    /**
+     * Starts {@code count} operations at {@code rate} per second, each on its own virtual thread,
+     * and waits for all of them to finish.
+     */
+    private static void openModel(double rate, int count, Operation op) {
+        long interval = (long) (1e9 / rate);
+        long start = System.nanoTime();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < count; i++) {
+                long scheduled = start + i * interval;
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+
+                int index = i;
+                clients.submit(() -> {
+                    op.run(index, scheduled);
+                    return null;
+                });
+            }
+        }
+    }
+
+    /** Sends the request and records its latency from {@code scheduled}; returns the response if it was a 200. */
+    private HttpResponse<String> send(String scenario, String operation, HttpRequest.Builder request, long scheduled) {
+        Stats stats = stats(scenario, operation);
+        try {
+            HttpResponse<String> res = http.send(request.timeout(Duration.ofSeconds(60)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            stats.record(System.nanoTime() - scheduled, res.statusCode());
+            return (res.statusCode() == 200) ? res : null;
+        } catch (IOException e) {
+            stats.error(-1);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stats.error(-1);
+            return null;
+        }
+    }
+
+    private HttpRequest.Builder post(String path, String body) {
+        return HttpRequest.newBuilder(URI.create(base + path))
+                .header("Content-Type", JSON)
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private synchronized Stats stats(String scenario, String operation) {
+        return results.computeIfAbsent(scenario + "/" + operation, k -> new Stats(scenario, operation));
+    }
+
+    private static int count(double rate) {
+        return (int) Math.max(1, rate * DURATION.toSeconds());
+    }
+
+    private static int randomUser() {
+        return ThreadLocalRandom.current().nextInt(USERS);
+    }
+
+    private static String email(int i) {
+        return "load" + i + "@dishdash.test";
+    }
+
+    private static String password(int i) {
+        return "pw-" + i;
+    }
+
+    /* ================= Reporting ================= */
+
+    void report(PrintStream out) {
+        out.println();
+        out.printf("%-13s %-12s %7s %8s %7s %9s %9s %9s %9s %9s%n",
+                "scenario", "operation", "count", "req/s", "err %", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Stats s : results.values()) {
+            Histogram h = s.latency;
+            out.printf("%-13s %-12s %7d %8.1f %7.2f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    s.scenario, s.operation, s.count(), s.throughput(), s.errorRate() * 100,
+                    ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)), ms(h.getValueAtPercentile(99)),
+                    ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()));
+        }
+    }
+
+    void writeResults() throws IOException {
+        Files.createDirectories(OUT);
+
+        List<Map<String, Object>> summary = new ArrayList<>();
+        for (Stats s : results.values()) {
+            try (PrintStream hgrm = new PrintStream(Files.newOutputStream(OUT.resolve(s.scenario + "-" + s.operation + ".hgrm")))) {
+                // ns recorded, ms reported
+                s.latency.outputPercentileDistribution(hgrm, 1e6);
+            }
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("scenario", s.scenario);
+            row.put("operation", s.operation);
+            row.put("count", s.count());
+            row.put("throughput", s.throughput());
+            row.put("errorRate", s.errorRate());
+            row.put("statuses", new TreeMap<>(s.statusCounts()));
+            row.put("p50Ms", ms(s.latency.getValueAtPercentile(50)));
+            row.put("p90Ms", ms(s.latency.getValueAtPercentile(90)));
+            row.put("p99Ms", ms(s.latency.getValueAtPercentile(99)));
+            row.put("p999Ms", ms(s.latency.getValueAtPercentile(99.9)));
+            row.put("maxMs", ms(s.latency.getMaxValue()));
+            summary.add(row);
+        }
+        JsonMapper.builder().build().writerWithDefaultPrettyPrinter().writeValue(OUT.resolve("summary.json").toFile(), summary);
+        System.out.println("Results written to " + OUT.toAbsolutePath());
+    }
+
+    boolean withinBudget() {
+        boolean ok = true;
+        for (Stats s : results.values()) {
+            double p99 = ms(s.latency.getValueAtPercentile(99));
+            if (MAX_P99_MS > 0 && p99 > MAX_P99_MS) {
+                System.out.printf("FAIL %s/%s: p99 %.1f ms > %.1f ms%n", s.scenario, s.operation, p99, MAX_P99_MS);
+                ok = false;
+            }
+            if (MAX_ERROR_RATE >= 0 && s.errorRate() > MAX_ERROR_RATE) {
+                System.out.printf("FAIL %s/%s: error rate %.4f > %.4f%n", s.scenario, s.operation, s.errorRate(), MAX_ERROR_RATE);
+                ok = false;
+            }
+        }
+        return ok;
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /** Per operation: latency of every completed request, status counts, transport errors as status -1. */
+    private static final class Stats {
+        final String scenario;
+        final String operation;
+        final Histogram latency = new ConcurrentHistogram(3);
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        final long firstNanos = System.nanoTime();
+        volatile long lastNanos = firstNanos;
+
+        Stats(String scenario, String operation) {
+            this.scenario = scenario;
+            this.operation = operation;
+        }
+
+        void record(long nanos, int status) {
+            latency.recordValue(nanos);
+            count(status);
+        }
+
+        void error(int status) {
+            count(status);
+        }
+
+        private void count(int status) {
+            statuses.computeIfAbsent(status, k -> new LongAdder()).increment();
+            lastNanos = System.nanoTime();
+        }
+
+        long count() {
+            return statuses.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+
+        double errorRate() {
+            long total = count();
+            LongAdder ok = statuses.get(200);
+            return (total == 0) ? 0 : 1.0 - ((ok == null) ? 0 : ok.sum()) / (double) total;
+        }
+
+        double throughput() {
+            double seconds = (lastNanos - firstNanos) / 1e9;
+            return (seconds <= 0) ? count() : count() / seconds;
+        }
+
+        Map<Integer, Long> statusCounts() {
+            Map<Integer, Long> counts = new HashMap<>();
+            statuses.forEach((status, n) -> counts.put(status, n.sum()));
+            return counts;
+        }
+    }
+}
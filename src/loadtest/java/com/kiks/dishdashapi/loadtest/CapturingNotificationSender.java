@@ -0,0 +1,37 @@
+package com.kiks.dishdashapi.loadtest;
+
+import com.kiks.dishdashapi.service.Notification;
+import com.kiks.dishdashapi.service.NotificationSender;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stands in for the mail gateway: keeps the last code sent to each recipient
+ * so the OTP campaign can verify it like a user reading the message would.
+ */
+final class CapturingNotificationSender implements NotificationSender {
+
+    private final Map<String, String> lastCode = new ConcurrentHashMap<>();
+
+    @Override
+    public void send(List<Notification> batch) {
+        for (Notification n : batch) {
+            String body = n.body();
+            lastCode.put(n.recipient(), body.substring(Math.max(0, body.length() - 6)));
+        }
+    }
+
+    /** Waits for the code to arrive (delivery is asynchronous); null if it doesn't in time. */
+    String awaitCode(String recipient, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        String code;
+        while ((code = lastCode.remove(recipient)) == null) {
+            if (System.nanoTime() > deadline) return null;
+            Thread.sleep(5);
+        }
+        return code;
+    }
+}
@@ -0,0 +1,46 @@
+package com.kiks.dishdashapi.loadtest;
+
+import com.kiks.dishdashapi.DishdashapiApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * The app on a private in-memory H2 (PostgreSQL mode) with rate limiting off,
+ * so load runs need nothing but a JDK.
+ */
+final class EmbeddedApp {
+
+    private EmbeddedApp() {
+    }
+
+    /** {@code properties} are key=value pairs on top of the embedded defaults. */
+    static SpringApplicationBuilder builder(String database, String... properties) {
+        List<String> all = Stream.concat(Stream.of(
+                "server.port=0",
+                "management.server.port=0",
+                "spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.flyway.enabled=false",
+                "logging.level.org.hibernate.SQL=WARN",
+                "logging.level.org.hibernate.orm.jdbc.bind=WARN",
+                "ratelimit.enabled=false"), Stream.of(properties)).toList();
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (String p : all) {
+            int eq = p.indexOf('=');
+            map.put(p.substring(0, eq), p.substring(eq + 1));
+        }
+
+        // first in line, so these win over whichever application.properties is on the classpath
+        return new SpringApplicationBuilder(DishdashapiApplication.class)
+                .initializers(ctx -> ctx.getEnvironment().getPropertySources()
+                        .addFirst(new MapPropertySource("embedded-app", map)));
+    }
+}
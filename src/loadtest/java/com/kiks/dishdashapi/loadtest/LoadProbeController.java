@@ -0,0 +1,18 @@
+package com.kiks.dishdashapi.loadtest;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Only on the load-test classpath: the cheapest authenticated endpoint, so token traffic
+ * measures the JWT filter and principal resolution rather than some business handler.
+ */
+@RestController
+class LoadProbeController {
+
+    @GetMapping("/loadtest/me")
+    String me(Authentication authentication) {
+        return authentication.getName();
+    }
+}
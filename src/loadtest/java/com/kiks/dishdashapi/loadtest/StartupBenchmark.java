@@ -0,0 +1,172 @@
+package com.kiks.dishdashapi.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cold-start time and resident memory of each startup variant the fast-startup profile built:
+ * the fat jar, the extracted jar, + Spring AOT, + the AppCDS archive, and the native image if there is one.
+ * Every run is a fresh process; it is timed from launch to the "Started DishdashapiApplication" line,
+ * and its RSS is read from /proc right after (Linux only). One untimed run per variant warms the page cache.
+ * <p>
+ * Only uses the JDK so it can run straight from source:
+ * {@code ./mvnw -Pfast-startup package && ./mvnw -Pfast-startup exec:exec@startup-benchmark -Dstartup.runs=10}
+ */
+public class StartupBenchmark {
+
+    private static final int RUNS = Integer.getInteger("runs", 5);
+    private static final long TIMEOUT_SECONDS = Long.getLong("timeout.seconds", 120);
+    private static final Pattern STARTED =
+            Pattern.compile("Started \\S+ in ([0-9.]+) seconds \\(process running for ([0-9.]+)\\)");
+
+    record Variant(String name, List<String> command) {}
+
+    record Sample(double startupMs, double processUptimeMs, double rssMiB) {}
+
+    public static void main(String[] args) throws Exception {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> appArgs = split(System.getProperty("app.args", "--spring.profiles.active=training"));
+        List<String> jvmArgs = split(System.getProperty("jvm.args", ""));
+
+        String fatJar = System.getProperty("fat.jar");
+        String extractedJar = System.getProperty("extracted.jar");
+        String cdsArchive = System.getProperty("cds.archive");
+        String nativeImage = System.getProperty("native.image");
+
+        List<Variant> variants = new ArrayList<>();
+        if (exists(fatJar)) variants.add(jvm("jar", java, jvmArgs, List.of(), fatJar, appArgs));
+        if (exists(extractedJar)) {
+            variants.add(jvm("extracted", java, jvmArgs, List.of(), extractedJar, appArgs));
+            variants.add(jvm("extracted+aot", java, jvmArgs, List.of("-Dspring.aot.enabled=true"), extractedJar, appArgs));
+            if (exists(cdsArchive)) {
+                variants.add(jvm("extracted+aot+cds", java, jvmArgs,
+                        List.of("-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + cdsArchive, "-Xshare:auto"),
+                        extractedJar, appArgs));
+            }
+        }
+        if (exists(nativeImage)) {
+            List<String> command = new ArrayList<>(List.of(nativeImage));
+            command.addAll(appArgs);
+            variants.add(new Variant("native", command));
+        }
+        if (variants.isEmpty()) {
+            throw new IllegalStateException("Nothing to start: build with ./mvnw -Pfast-startup package first");
+        }
+
+        List<String> report = new ArrayList<>();
+        StringBuilder json = new StringBuilder("{\n  \"runs\": " + RUNS + ",\n  \"variants\": [");
+        for (Variant variant : variants) {
+            System.out.println("== " + variant.name() + ": " + String.join(" ", variant.command()));
+            start(variant);
+
+            List<Sample> samples = new ArrayList<>();
+            for (int i = 0; i < RUNS; i++) samples.add(start(variant));
+
+            double[] startup = samples.stream().mapToDouble(Sample::startupMs).sorted().toArray();
+            double[] uptime = samples.stream().mapToDouble(Sample::processUptimeMs).sorted().toArray();
+            double[] rss = samples.stream().mapToDouble(Sample::rssMiB).sorted().toArray();
+
+            report.add(String.format("%-18s %10.0f %10.0f %10.0f %10.1f %10.1f", variant.name(),
+                    median(startup), startup[0], median(uptime), median(rss), rss[rss.length - 1]));
+            if (json.charAt(json.length() - 1) == '}') json.append(',');
+            json.append(String.format("%n    {\"name\": \"%s\", \"startupMsMedian\": %.1f, \"startupMsMin\": %.1f, "
+                            + "\"processUptimeMsMedian\": %.1f, \"rssMiBMedian\": %.1f, \"rssMiBMax\": %.1f}",
+                    variant.name(), median(startup), startup[0], median(uptime), median(rss), rss[rss.length - 1]));
+        }
+        json.append("\n  ]\n}\n");
+
+        System.out.println();
+        System.out.printf("%-18s %10s %10s %10s %10s %10s%n",
+                "variant", "start ms", "min ms", "uptime ms", "RSS MiB", "max MiB");
+        report.forEach(System.out::println);
+
+        Path out = Path.of(System.getProperty("out", "target/startup"));
+        Files.createDirectories(out);
+        Files.writeString(out.resolve("summary.json"), json.toString());
+    }
+
+    private static Variant jvm(String name, String java, List<String> jvmArgs, List<String> variantArgs,
+                               String jar, List<String> appArgs) {
+        List<String> command = new ArrayList<>(List.of(java));
+        command.addAll(jvmArgs);
+        command.addAll(variantArgs);
+        command.addAll(List.of("-jar", jar));
+        command.addAll(appArgs);
+        return new Variant(name, command);
+    }
+
+    private static Sample start(Variant variant) throws Exception {
+        ProcessBuilder builder = new ProcessBuilder(variant.command()).redirectErrorStream(true);
+        // run next to the jar, like the CDS training run did
+        for (String arg : variant.command()) {
+            if (arg.endsWith(".jar")) builder.directory(Path.of(arg).toAbsolutePath().getParent().toFile());
+        }
+
+        long launched = System.nanoTime();
+        Process process = builder.start();
+        CompletableFuture<Matcher> started = new CompletableFuture<>();
+        Thread.ofVirtual().start(() -> drain(process, started));
+
+        try {
+            Matcher m = started.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            double startupMs = (System.nanoTime() - launched) / 1e6;
+            double uptimeMs = Double.parseDouble(m.group(2)) * 1000;
+            return new Sample(startupMs, uptimeMs, rssMiB(process.pid()));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) process.destroyForcibly();
+        }
+    }
+
+    // keeps reading after the Started line so the app never blocks on a full pipe
+    private static void drain(Process process, CompletableFuture<Matcher> started) {
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            List<String> tail = new ArrayList<>();
+            String line;
+            while ((line = out.readLine()) != null) {
+                if (!started.isDone()) {
+                    tail.add(line);
+                    Matcher m = STARTED.matcher(line);
+                    if (m.find()) started.complete(m);
+                }
+            }
+            started.completeExceptionally(new IllegalStateException(
+                    "Exited before starting:\n" + String.join("\n", tail.subList(Math.max(0, tail.size() - 40), tail.size()))));
+        } catch (IOException e) {
+            started.completeExceptionally(e);
+        }
+    }
+
+    private static double rssMiB(long pid) throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.exists(status)) return Double.NaN;
+        for (String line : Files.readAllLines(status)) {
+            // VmRSS:    123456 kB
+            if (line.startsWith("VmRSS:")) return Long.parseLong(line.replaceAll("[^0-9]", "")) / 1024.0;
+        }
+        return Double.NaN;
+    }
+
+    private static double median(double[] sorted) {
+        int mid = sorted.length / 2;
+        return (sorted.length % 2 == 1) ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2;
+    }
+
+    private static boolean exists(String path) {
+        return path != null && !path.isBlank() && Files.isRegularFile(Path.of(path));
+    }
+
+    private static List<String> split(String args) {
+        return args.isBlank() ? List.of() : Arrays.asList(args.trim().split("\\s+"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.kiks.dishdashapi.loadtest;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Boots the app on an in-memory database once with platform threads and once with virtual threads,
+ * then drives /auth/register and /auth/login with a fixed number of concurrent clients
+ * and prints throughput and tail latency for each mode.
+ * <p>
+ * Run with {@code ./mvnw -Ploadtest test-compile exec:exec -Dloadtest.main=com.kiks.dishdashapi.loadtest.ThreadingModesBenchmark};
+ * tune with -Dloadtest.users=.. -Dloadtest.clients=..
+ */
+public class ThreadingModesBenchmark {
+
+    private static final int USERS = Integer.getInteger("users", 500);
+    private static final int CLIENTS = Integer.getInteger("clients", 200);
+
+    public static void main(String[] args) throws Exception {
+        List<String> report = new ArrayList<>();
+        for (boolean virtual : new boolean[]{false, true}) {
+            String mode = virtual ? "virtual" : "platform";
+            try (ConfigurableApplicationContext ctx = boot(virtual)) {
+                String base = "http://localhost:" + ctx.getEnvironment().getProperty("local.server.port");
+
+                report.add(run(mode, "register", base + "/auth/register",
+                        i -> "{\"fullName\":\"Load " + i + "\",\"email\":\"load" + i + "@dishdash.test\",\"password\":\"pw-" + i + "\"}"));
+                report.add(run(mode, "login", base + "/auth/login",
+                        i -> "{\"email\":\"load" + i + "@dishdash.test\",\"password\":\"pw-" + i + "\"}"));
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-9s %-9s %8s %9s %9s %9s %9s %7s%n", "mode", "endpoint", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        report.forEach(System.out::println);
+    }
+
+    static ConfigurableApplicationContext boot(boolean virtual) {
+        return EmbeddedApp.builder("load-" + virtual,
+                        "spring.threads.virtual.enabled=" + virtual,
+                        "auth.hashing.queue-capacity=" + (USERS * 2),
+                        "auth.hashing.timeout=60s")
+                .run();
+    }
+
+    interface Body {
+        String forUser(int i);
+    }
+
+    static String run(String mode, String name, String url, Body body) throws Exception {
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        long[] latencies = new long[USERS];
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger next = new AtomicInteger();
+
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> running = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                running.add(clients.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < USERS) {
+                        HttpRequest req = HttpRequest.newBuilder(URI.create(url))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(body.forUser(i)))
+                                .build();
+                        long t0 = System.nanoTime();
+                        try {
+                            HttpResponse<Void> res = http.send(req, HttpResponse.BodyHandlers.discarding());
+                            if (res.statusCode() != 200) errors.incrementAndGet();
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[i] = System.nanoTime() - t0;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : running) f.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        return String.format("%-9s %-9s %8.1f %9.1f %9.1f %9.1f %9.1f %7d", mode, name, USERS / seconds,
+                ms(latencies, 0.50), ms(latencies, 0.99), ms(latencies, 0.999), latencies[USERS - 1] / 1e6, errors.get());
+    }
+
+    private static double ms(long[] sorted, double q) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(q * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,121 @@
+package com.kiks.dishdashapi;
+
+import com.kiks.dishdashapi.service.AuthEvent;
+import com.kiks.dishdashapi.service.AuthEventReader;
+import com.kiks.dishdashapi.service.AuthEventType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Offline analysis of an auth event journal directory ({@code auth.journal.dir}); needs no Spring context
+ * and can run next to the live application.
+ * <pre>
+ * java -cp dishdashapi.jar -Dloader.main=com.kiks.dishdashapi.AuthJournalCli \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher &lt;command&gt; &lt;dir&gt; [filters]
+ *
+ * commands: dump    every event, one tab-separated line each: time, type, subject, detail
+ *           tail    dump, then follow new events until interrupted
+ *           stats   events per type, and the subjects with the most failed logins and rejected OTPs
+ * filters:  --type=LOGIN_FAILED[,OTP_REJECTED]  --subject=a@x.com  --since=2026-01-31T12:00:00Z
+ * </pre>
+ */
+public class AuthJournalCli {
+
+    private static final int TOP_SUBJECTS = 10;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("usage: AuthJournalCli dump|tail|stats <journal dir> "
+                    + "[--type=T1,T2] [--subject=email] [--since=ISO-8601 instant]");
+            System.exit(2);
+        }
+        Path dir = Path.of(args[1]);
+        if (!Files.isDirectory(dir)) {
+            System.err.println("Not a directory: " + dir);
+            System.exit(2);
+        }
+
+        Predicate<AuthEvent> filter = filter(args);
+        AuthEventReader reader = new AuthEventReader(dir);
+
+        switch (args[0]) {
+            case "dump" -> reader.poll(event -> print(event, filter));
+            case "tail" -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    if (reader.poll(event -> print(event, filter)) == 0) Thread.sleep(200);
+                }
+            }
+            case "stats" -> stats(reader, filter);
+            default -> {
+                System.err.println("Unknown command: " + args[0]);
+                System.exit(2);
+            }
+        }
+    }
+
+    private static Predicate<AuthEvent> filter(String[] args) {
+        Predicate<AuthEvent> filter = event -> true;
+        for (int i = 2; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--type=")) {
+                EnumSet<AuthEventType> types = EnumSet.noneOf(AuthEventType.class);
+                for (String t : arg.substring("--type=".length()).split(",")) types.add(AuthEventType.valueOf(t.trim()));
+                filter = filter.and(event -> types.contains(event.type()));
+            } else if (arg.startsWith("--subject=")) {
+                String subject = arg.substring("--subject=".length()).trim().toLowerCase(Locale.ROOT);
+                filter = filter.and(event -> subject.equals(event.subject()));
+            } else if (arg.startsWith("--since=")) {
+                Instant since = Instant.parse(arg.substring("--since=".length()));
+                filter = filter.and(event -> !event.timestamp().isBefore(since));
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        return filter;
+    }
+
+    private static void print(AuthEvent event, Predicate<AuthEvent> filter) {
+        if (!filter.test(event)) return;
+        System.out.println(event.timestamp() + "\t" + event.type() + "\t" + event.subject() + "\t" + event.detail());
+    }
+
+    private static void stats(AuthEventReader reader, Predicate<AuthEvent> filter) throws IOException {
+        Map<AuthEventType, Long> perType = new EnumMap<>(AuthEventType.class);
+        Map<String, Long> failedLogins = new HashMap<>();
+        Map<String, Long> rejectedOtps = new HashMap<>();
+        Instant[] range = new Instant[2];
+
+        reader.poll(event -> {
+            if (!filter.test(event)) return;
+            perType.merge(event.type(), 1L, Long::sum);
+            if (event.type() == AuthEventType.LOGIN_FAILED) failedLogins.merge(event.subject(), 1L, Long::sum);
+            if (event.type() == AuthEventType.OTP_REJECTED) rejectedOtps.merge(event.subject(), 1L, Long::sum);
+            if (range[0] == null) range[0] = event.timestamp();
+            range[1] = event.timestamp();
+        });
+
+        System.out.println("events from " + range[0] + " to " + range[1]);
+        perType.forEach((type, count) -> System.out.printf("%-16s %10d%n", type, count));
+        top("failed logins", failedLogins);
+        top("rejected OTPs", rejectedOtps);
+    }
+
+    private static void top(String title, Map<String, Long> counts) {
+        if (counts.isEmpty()) return;
+        System.out.println();
+        System.out.println("top " + title + ":");
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(TOP_SUBJECTS)
+                .forEach(e -> System.out.printf("%10d  %s%n", e.getValue(), e.getKey()));
+    }
+}
@@ -0,0 +1,39 @@
+package com.kiks.dishdashapi.config;
+
+import com.password4j.AlgorithmFinder;
+import com.password4j.Argon2Function;
+import com.password4j.types.Argon2;
+
+/**
+ * Named Argon2id cost settings, picked with {@code auth.hashing.profile}.
+ * DEFAULT keeps whatever password4j picks, which is what every existing hash was made with.
+ */
+public enum Argon2CostProfile {
+
+    DEFAULT(0, 0, 0),
+    // OWASP minimum: 19 MiB, 2 passes
+    INTERACTIVE(19_456, 2, 1),
+    MODERATE(65_536, 3, 1),
+    SENSITIVE(262_144, 4, 1);
+
+    private static final int OUTPUT_LENGTH = 32;
+
+    private final int memoryKib;
+    private final int iterations;
+    private final int parallelism;
+
+    Argon2CostProfile(int memoryKib, int iterations, int parallelism) {
+        this.memoryKib = memoryKib;
+        this.iterations = iterations;
+        this.parallelism = parallelism;
+    }
+
+    public Argon2Function toFunction() {
+        if (this == DEFAULT) return AlgorithmFinder.getArgon2Instance();
+        return of(memoryKib, iterations, parallelism);
+    }
+
+    public static Argon2Function of(int memoryKib, int iterations, int parallelism) {
+        return Argon2Function.getInstance(memoryKib, iterations, parallelism, OUTPUT_LENGTH, Argon2.ID);
+    }
+}
@@ -1,14 +1,19 @@
 package com.kiks.dishdashapi.config;
 
+import com.kiks.dishdashapi.model.User;
+import com.kiks.dishdashapi.model.UserPrincipal;
+import com.kiks.dishdashapi.service.CredentialVersions;
 import com.kiks.dishdashapi.service.JwtService;
+import com.kiks.dishdashapi.service.MyUserDetailsService;
+import com.kiks.dishdashapi.service.TokenRevocationService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
-import com.kiks.dishdashapi.service.MyUserDetailsService;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationContext;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -16,6 +21,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 public class JwtFilter extends OncePerRequestFilter {
@@ -26,6 +32,16 @@ public class JwtFilter extends OncePerRequestFilter {
     @Autowired
     private MyUserDetailsService userDetailsService;
 
+    @Autowired
+    private CredentialVersions credentialVersions;
+
+    @Autowired
+    private TokenRevocationService revocations;
+
+    // Build the principal from token claims instead of loading the user on every request
+    @Value("${jwt.stateless-principal:false}")
+    private boolean statelessPrincipal;
+
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -38,15 +54,15 @@ public class JwtFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
 
             String token = authHeader.substring(7);
-            String username = jwtService.extractUserName(token);
+            JwtService.VerifiedClaims claims = jwtService.verify(token);
 
-            if (username != null &&
+            // in-memory denylist (logout, disabled users); no database round trip
+            if (claims != null && !revocations.isRevoked(claims) &&
                     SecurityContextHolder.getContext().getAuthentication() == null) {
 
-                UserDetails userDetails =
-                        userDetailsService.loadUserByUsername(username);
+                UserDetails userDetails = resolvePrincipal(claims);
 
-                if (jwtService.validateToken(token, userDetails)) {
+                if (userDetails != null && claims.username().equals(userDetails.getUsername())) {
 
                     UsernamePasswordAuthenticationToken authentication =
                             new UsernamePasswordAuthenticationToken(
@@ -68,4 +84,28 @@ public class JwtFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private UserDetails resolvePrincipal(JwtService.VerifiedClaims claims) {
+        // token minted before the last password change -> treat as unauthenticated.
+        // Checked against the persisted version, not the (possibly older) cached principal
+        if (claims.credentialVersion() != null
+                && !credentialVersions.isCurrent(claims.username(), claims.credentialVersion())) {
+            return null;
+        }
+
+        if (!statelessPrincipal || !claims.isSelfContained()) {
+            UserDetails user = userDetailsService.loadUserByUsername(claims.username());
+            return (user.isEnabled() && user.isAccountNonLocked()) ? user : null;
+        }
+
+        User user = new User();
+        user.setId(claims.userId());
+        user.setEmail(claims.username());
+        user.setCredentialVersion(claims.credentialVersion());
+
+        List<SimpleGrantedAuthority> authorities = claims.authorities().stream()
+                .map(SimpleGrantedAuthority::new)
+                .toList();
+        return new UserPrincipal(user, authorities);
+    }
+}
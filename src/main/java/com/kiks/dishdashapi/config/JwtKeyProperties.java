@@ -0,0 +1,33 @@
+package com.kiks.dishdashapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * HMAC keys for signing and verifying JWTs, by key id (the token's {@code kid} header), e.g.
+ * <pre>
+ * jwt.signing.active-key=2026-10
+ * jwt.signing.keys.2026-10.secret=&lt;base64, at least 256 bits&gt;
+ * jwt.signing.keys.2026-07.secret=&lt;base64&gt;
+ * jwt.signing.keys.2026-07.retired-at=2026-10-18T09:00:00Z
+ * </pre>
+ * New tokens are signed with the active key. A retired key still verifies tokens
+ * until {@code retired-at + grace}; a key without {@code retired-at} verifies indefinitely.
+ */
+@ConfigurationProperties(prefix = "jwt.signing")
+public record JwtKeyProperties(
+        String activeKey,
+        Duration grace,
+        Map<String, Key> keys) {
+
+    public JwtKeyProperties {
+        // tokens live 30 minutes, so by then nothing signed with a retired key is still valid
+        if (grace == null) grace = Duration.ofMinutes(30);
+        if (keys == null) keys = Map.of();
+    }
+
+    public record Key(String secret, Instant retiredAt) {}
+}
@@ -0,0 +1,31 @@
+package com.kiks.dishdashapi.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.flyway.autoconfigure.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Runs the Flyway migrations at startup unless {@code db.migrate-on-startup=false}, e.g. for the
+ * AppCDS training run or pods whose migrations run as a separate job. Unlike
+ * {@code spring.flyway.enabled} this is read at runtime, so it also works in AOT-processed builds,
+ * where conditions on properties are settled at build time.
+ */
+@Configuration
+public class MigrationConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(MigrationConfig.class);
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(@Value("${db.migrate-on-startup:true}") boolean migrate) {
+        return flyway -> {
+            if (migrate) {
+                flyway.migrate();
+            } else {
+                log.info("Skipping Flyway migrations at startup (db.migrate-on-startup=false)");
+            }
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package com.kiks.dishdashapi.config;
+
+import com.kiks.dishdashapi.model.UserCredentials;
+import com.kiks.dishdashapi.model.UserSummary;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.util.List;
+
+/**
+ * What the native image needs beyond the hints Spring's AOT processing derives from the beans.
+ * - jjwt 0.11: jjwt-api instantiates its implementation classes by name, and the parser finds the
+ *   Jackson deserializer through ServiceLoader.
+ * - password4j: reads an optional psw4j.properties from the classpath.
+ * - Hibernate calls the constructors of the "select new" projections in UserRepository reflectively.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    static final List<String> JJWT_TYPES = List.of(
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParser",
+            "io.jsonwebtoken.impl.DefaultClaims",
+            "io.jsonwebtoken.impl.DefaultHeader",
+            "io.jsonwebtoken.impl.DefaultJwsHeader",
+            "io.jsonwebtoken.impl.compression.DeflateCompressionCodec",
+            "io.jsonwebtoken.impl.compression.GzipCompressionCodec",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer");
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (String type : JJWT_TYPES) {
+            hints.reflection().registerTypeIfPresent(classLoader, type, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        }
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+
+        hints.resources().registerPattern("psw4j.properties");
+
+        hints.reflection().registerType(UserCredentials.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(UserSummary.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+    }
+}
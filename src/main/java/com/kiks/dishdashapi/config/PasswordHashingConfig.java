@@ -0,0 +1,94 @@
+package com.kiks.dishdashapi.config;
+
+import com.kiks.dishdashapi.service.BoundedPasswordEncoder;
+import com.password4j.Argon2Function;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * The one password encoder of the app: Argon2 with a configurable cost profile,
+ * run on the bounded hashing pool.
+ */
+@Configuration
+public class PasswordHashingConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingConfig.class);
+
+    private static final int MAX_CALIBRATED_ITERATIONS = 10;
+    private static final int MIN_CALIBRATED_MEMORY_KIB = 8_192;
+
+    @Bean
+    public Argon2Function argon2Function(
+            @Value("${auth.hashing.profile:DEFAULT}") Argon2CostProfile profile,
+            @Value("${auth.hashing.upgrade-floor:${auth.hashing.profile:DEFAULT}}") Argon2CostProfile floor,
+            @Value("${auth.hashing.calibrate.enabled:false}") boolean calibrate,
+            @Value("${auth.hashing.calibrate.target:PT0.25S}") Duration target) {
+
+        Argon2Function base = profile.toFunction();
+        Argon2Function chosen = calibrate ? calibrate(base, floor.toFunction(), target) : base;
+
+        log.info("Argon2 profile {}: m={}KiB t={} p={}", profile,
+                chosen.getMemory(), chosen.getIterations(), chosen.getParallelism());
+        return chosen;
+    }
+
+    @Bean
+    public BoundedPasswordEncoder passwordEncoder(
+            Argon2Function argon2Function,
+            @Value("${auth.hashing.upgrade-floor:${auth.hashing.profile:DEFAULT}}") Argon2CostProfile floor,
+            MeterRegistry meterRegistry,
+            @Value("${auth.hashing.threads:0}") int threads,
+            @Value("${auth.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${auth.hashing.timeout:PT5S}") Duration timeout) {
+
+        return new BoundedPasswordEncoder(new TunedArgon2PasswordEncoder(argon2Function, floor.toFunction()),
+                meterRegistry, threads, queueCapacity, timeout);
+    }
+
+    /**
+     * {@code target} is a budget: the result is the most expensive setting whose hash still takes
+     * at most {@code target} on this machine. Starting from the profile's memory and parallelism,
+     * memory is halved while even the floor's iterations are over budget, then iterations are raised
+     * as long as a hash stays within it. Never goes below the upgrade floor, even if the floor alone
+     * is over budget: a node hashing under it would flag its own hashes for an upgrade on every login.
+     */
+    static Argon2Function calibrate(Argon2Function base, Argon2Function floor, Duration target) {
+        int memory = Math.max(base.getMemory(), floor.getMemory());
+        int minMemory = Math.max(MIN_CALIBRATED_MEMORY_KIB, floor.getMemory());
+        int iterations = Math.max(1, floor.getIterations());
+        int parallelism = base.getParallelism();
+
+        Argon2Function candidate = Argon2CostProfile.of(memory, iterations, parallelism);
+        while (time(candidate).compareTo(target) > 0 && memory / 2 >= minMemory) {
+            memory /= 2;
+            candidate = Argon2CostProfile.of(memory, iterations, parallelism);
+        }
+
+        for (int t = iterations + 1; t <= MAX_CALIBRATED_ITERATIONS; t++) {
+            Argon2Function next = Argon2CostProfile.of(memory, t, parallelism);
+            if (time(next).compareTo(target) > 0) break;
+            candidate = next;
+        }
+        return candidate;
+    }
+
+    // median of a few runs; the first one also warms up the JIT
+    private static Duration time(Argon2Function function) {
+        long[] samples = new long[3];
+        function.hash("calibration");
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            function.hash("calibration");
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return Duration.ofNanos(samples[1]);
+    }
+}
@@ -0,0 +1,279 @@
+package com.kiks.dishdashapi.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Token-bucket throttling for the /auth endpoints, per client IP and per e-mail in the body.
+ * Runs in the security chain ahead of {@link JwtFilter}; rejected calls get 429 + Retry-After,
+ * same as the OTP cooldown. Buckets live in size-bounded caches, one per route and dimension,
+ * keyed by the address or e-mail as is, and disappear when idle.
+ * <p>
+ * The client IP is {@link HttpServletRequest#getRemoteAddr()}. Behind a load balancer it is the
+ * address from X-Forwarded-For only when the connection comes from a trusted proxy
+ * ({@code server.forward-headers-strategy} and {@code server.tomcat.remoteip.internal-proxies}),
+ * so a client can't pick its own bucket by sending the header.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // bodies of the auth endpoints are tiny; anything bigger is not parsed for an e-mail
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    private final RateLimitProperties properties;
+
+    private final JsonMapper jsonMapper;
+
+    private final Map<String, RouteBuckets> routesByPath;
+
+    public RateLimitFilter(RateLimitProperties properties, JsonMapper jsonMapper) {
+        this.properties = properties;
+        this.jsonMapper = jsonMapper;
+        this.routesByPath = properties.routes().values().stream()
+                .collect(Collectors.toMap(RateLimitProperties.Route::path,
+                        rule -> new RouteBuckets(rule, newBuckets(rule.ip()), newBuckets(rule.email()))));
+    }
+
+    // null for a dimension the route doesn't limit
+    private Cache<String, TokenBucket> newBuckets(RateLimitProperties.Limit limit) {
+        return (limit == null) ? null : Caffeine.newBuilder()
+                .maximumSize(properties.maxTrackedKeys())
+                .expireAfterAccess(properties.idleExpiry())
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.enabled() || !routesByPath.containsKey(pathOf(request));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        RouteBuckets route = routesByPath.get(pathOf(request));
+        RateLimitProperties.Route rule = route.rule();
+        long now = System.nanoTime();
+
+        // IP first: it is free, and it protects the body parsing below
+        if (rule.ip() != null) {
+            long wait = acquire(route.ip(), request.getRemoteAddr(), rule.ip(), now);
+            if (wait > 0) {
+                reject(response, wait);
+                return;
+            }
+        }
+
+        if (rule.email() != null) {
+            CachedBodyRequest cached = CachedBodyRequest.wrap(request);
+            String email = (cached == null || cached.rest != null) ? null : extractEmail(cached.body);
+
+            if (email != null) {
+                long wait = acquire(route.email(), email, rule.email(), now);
+                if (wait > 0) {
+                    reject(response, wait);
+                    return;
+                }
+            }
+            if (cached != null) request = cached;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    // decoded and without ;params, as the servlet mapping sees it; the raw URI can be spelled around a route
+    private static String pathOf(HttpServletRequest request) {
+        String pathInfo = request.getPathInfo();
+        return (pathInfo == null) ? request.getServletPath() : request.getServletPath() + pathInfo;
+    }
+
+    private static long acquire(Cache<String, TokenBucket> buckets, String key,
+                                RateLimitProperties.Limit limit, long now) {
+        TokenBucket bucket = buckets.getIfPresent(key);
+        // the loader captures limit and now, so it is only created on a miss
+        if (bucket == null) bucket = buckets.get(key, k -> new TokenBucket(limit, now));
+        return bucket.tryAcquire(now);
+    }
+
+    private String extractEmail(byte[] body) {
+        try {
+            JsonNode email = jsonMapper.readTree(body).get("email");
+            return (email == null || !email.isString()) ? null : email.asString().trim().toLowerCase(Locale.ROOT);
+        } catch (RuntimeException e) {
+            // malformed JSON: let the controller answer it
+            return null;
+        }
+    }
+
+    private static void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long secondsLeft = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", String.valueOf(secondsLeft));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write("Too many requests. Try again in " + secondsLeft + "s");
+    }
+
+    private record RouteBuckets(RateLimitProperties.Route rule,
+                                Cache<String, TokenBucket> ip,
+                                Cache<String, TokenBucket> email) {}
+
+    /**
+     * Request whose (small) body has been read up front so it can be read again downstream.
+     * A chunked body that turns out to be bigger keeps only the prefix read so far in memory;
+     * the rest is still streamed from the connection after it.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        // null when the whole body is in memory
+        private final ServletInputStream rest;
+
+        private ServletInputStream stream;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body, ServletInputStream rest) {
+            super(request);
+            this.body = body;
+            this.rest = rest;
+        }
+
+        static CachedBodyRequest wrap(HttpServletRequest request) throws IOException {
+            long length = request.getContentLengthLong();
+            if (length > MAX_BODY_BYTES) return null;
+
+            ServletInputStream in = request.getInputStream();
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            // chunked body over the limit: already partly consumed, so hand the prefix back in front of the rest
+            return new CachedBodyRequest(request, body, (body.length > MAX_BODY_BYTES) ? in : null);
+        }
+
+        @Override
+        public synchronized ServletInputStream getInputStream() {
+            if (stream == null) stream = (rest == null) ? new BufferedBody(body) : new PrefixedBody(body, rest);
+            return stream;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static final class BufferedBody extends ServletInputStream {
+
+        private final ByteArrayInputStream in;
+
+        BufferedBody(byte[] body) {
+            this.in = new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return in.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        // the body is already in memory, so it is all available right away
+        @Override
+        public void setReadListener(ReadListener listener) {
+            try {
+                if (!isFinished()) listener.onDataAvailable();
+                if (isFinished()) listener.onAllDataRead();
+            } catch (IOException e) {
+                listener.onError(e);
+            }
+        }
+
+        @Override
+        public int read() {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return in.read(b, off, len);
+        }
+    }
+
+    /** The prefix read for the size check, then whatever the connection still has. */
+    private static final class PrefixedBody extends ServletInputStream {
+
+        private final ByteArrayInputStream prefix;
+
+        private final ServletInputStream rest;
+
+        private final SequenceInputStream in;
+
+        PrefixedBody(byte[] prefix, ServletInputStream rest) {
+            this.prefix = new ByteArrayInputStream(prefix);
+            this.rest = rest;
+            this.in = new SequenceInputStream(this.prefix, rest);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return prefix.available() == 0 && rest.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return prefix.available() > 0 || rest.isReady();
+        }
+
+        // the container calls back once the connection has data; until the prefix is drained isReady() stays true
+        @Override
+        public void setReadListener(ReadListener listener) {
+            if (!rest.isFinished()) {
+                rest.setReadListener(listener);
+                return;
+            }
+            try {
+                listener.onDataAvailable();
+                listener.onAllDataRead();
+            } catch (IOException e) {
+                listener.onError(e);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return in.read(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.kiks.dishdashapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Per-route request limits for the /auth endpoints, e.g.
+ * <pre>
+ * ratelimit.routes.login.path=/auth/login
+ * ratelimit.routes.login.ip.capacity=20
+ * ratelimit.routes.login.ip.period=1m
+ * </pre>
+ * A missing ip/email limit means that dimension is not limited on that route.
+ */
+@ConfigurationProperties(prefix = "ratelimit")
+public record RateLimitProperties(
+        boolean enabled,
+        long maxTrackedKeys,
+        Duration idleExpiry,
+        Map<String, Route> routes) {
+
+    public RateLimitProperties {
+        if (maxTrackedKeys <= 0) maxTrackedKeys = 100_000;
+        if (idleExpiry == null) idleExpiry = Duration.ofMinutes(10);
+        if (routes == null) routes = Map.of();
+    }
+
+    public record Route(String path, Limit ip, Limit email) {}
+
+    /** Burst of {@code capacity} requests, refilled evenly over {@code period}. */
+    public record Limit(int capacity, Duration period) {}
+}
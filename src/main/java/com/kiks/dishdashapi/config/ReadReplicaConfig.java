@@ -0,0 +1,60 @@
+package com.kiks.dishdashapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Read/write split over two Hikari pools, enabled with {@code datasource.replica.enabled=true}.
+ * - "primary" is the usual {@code spring.datasource.*} pool; "replica" points at a streaming replica
+ *   ({@code datasource.replica.url}, {@code datasource.replica.hikari.*}) and opens read-only sessions.
+ * - The {@code dataSource} everything else uses (JPA, JdbcTemplate stores, Flyway) hands out lazy
+ *   connections: a transaction marked {@code readOnly} - every Spring Data finder is, unless it joins a
+ *   read-write transaction - gets its connection from the replica, anything else from the primary
+ *   ({@link ReadReplicaRoutingDataSource}). The pool is picked on the first statement.
+ * - Both pools are beans, so hikaricp.* metrics come out per pool (tag pool=primary|replica).
+ * Replication lag is the caller's problem: see ReadYourWrites for reads right after a write.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource ds = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        ds.setPoolName("primary");
+        return ds;
+    }
+
+    @Bean
+    @ConfigurationProperties("datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${datasource.replica.url}") String url,
+                                              @Value("${datasource.replica.username:${spring.datasource.username:}}") String username,
+                                              @Value("${datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource ds = new HikariDataSource();
+        ds.setJdbcUrl(url);
+        ds.setUsername(username);
+        ds.setPassword(password);
+        ds.setPoolName("replica");
+        // a write that slips through fails here instead of on the replica (hot standbys refuse them anyway)
+        ds.setReadOnly(true);
+        return ds;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica) {
+        return new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(primary, replica));
+    }
+}
@@ -1,9 +1,17 @@
 package com.kiks.dishdashapi.config;
 
+import com.kiks.dishdashapi.service.BoundedPasswordEncoder;
+import com.kiks.dishdashapi.service.MyUserDetailsService;
+import com.kiks.dishdashapi.service.PasswordUpgradeService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.server.context.WebServerInitializedEvent;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -12,29 +20,56 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.password4j.Argon2Password4jPasswordEncoder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties({RateLimitProperties.class, JwtKeyProperties.class})
 public class SecurityConfig {
 
 
-    private final UserDetailsService userDetailsService;
+    private final MyUserDetailsService userDetailsService;
 
     private final JwtFilter jwtFilter;
 
-    public SecurityConfig(UserDetailsService userDetailsService, JwtFilter jwtFilter) {
+    private final RateLimitFilter rateLimitFilter;
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final PasswordUpgradeService passwordUpgradeService;
+
+    // port of the separate actuator server (management.server.port) once it listens; -1 while it shares the app's
+    private volatile int managementPort = -1;
+
+    public SecurityConfig(MyUserDetailsService userDetailsService, JwtFilter jwtFilter, RateLimitFilter rateLimitFilter,
+                          BoundedPasswordEncoder passwordEncoder, PasswordUpgradeService passwordUpgradeService) {
         this.userDetailsService = userDetailsService;
         this.jwtFilter = jwtFilter;
+        this.rateLimitFilter = rateLimitFilter;
+        this.passwordEncoder = passwordEncoder;
+        this.passwordUpgradeService = passwordUpgradeService;
     }
 
     @Bean
     public AuthenticationProvider authProvider() {
-        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
-        provider.setPasswordEncoder(new Argon2Password4jPasswordEncoder());
+        // past the user cache: a disable or lock on another node must stop the next login
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService.fromPrimary()) {
+            @Override
+            protected Authentication createSuccessAuthentication(Object principal, Authentication authentication,
+                                                                 UserDetails user) {
+                // re-hash with the current Argon2 profile off the login path instead of inline
+                if (authentication.getCredentials() != null && passwordEncoder.upgradeEncoding(user.getPassword())) {
+                    passwordUpgradeService.upgradeInBackground(user, authentication.getCredentials().toString());
+                }
+                return super.createSuccessAuthentication(principal, authentication, user);
+            }
+        };
+        provider.setPasswordEncoder(passwordEncoder);
         return provider;
     }
 
@@ -44,15 +79,41 @@ public class SecurityConfig {
 
         http.csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(request -> request
-                        .requestMatchers("/auth/register", "/auth/login", "/auth/request-otp", "/auth/verify-otp")
+                        // only the actuator listens there, and the port is not exposed outside the cluster
+                        .requestMatchers((RequestMatcher) this::onManagementPort).permitAll()
+                        .requestMatchers("/auth/register", "/auth/login", "/auth/refresh", "/auth/request-otp", "/auth/verify-otp",
+                                "/auth/reset-password")
                         .permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/admin/**", "/actuator/**").hasAuthority("ADMIN")
                         .anyRequest().authenticated())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(rateLimitFilter, JwtFilter.class);
 
         return http.build();
     }
 
+    private boolean onManagementPort(HttpServletRequest request) {
+        return managementPort > 0 && request.getLocalPort() == managementPort;
+    }
+
+    // the actuator's child context publishes this too, and it reaches us through the parent
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        if ("management".equals(event.getApplicationContext().getServerNamespace())) {
+            managementPort = event.getWebServer().getPort();
+        }
+    }
+
+    // Only run the rate limiter inside the security chain, not a second time as a plain servlet filter
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter filter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
         return config.getAuthenticationManager();
@@ -0,0 +1,39 @@
+package com.kiks.dishdashapi.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in its GCRA form: the whole state is one "theoretical arrival time"
+ * updated with CAS, so taking a token needs no lock and allocates nothing.
+ */
+final class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+
+    // point in time (System.nanoTime based) at which the bucket is full again
+    private final AtomicLong tat;
+
+    TokenBucket(RateLimitProperties.Limit limit, long nowNanos) {
+        this.emissionIntervalNanos = limit.period().toNanos() / limit.capacity();
+        this.burstNanos = limit.period().toNanos();
+        this.tat = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes one token.
+     * @return 0 if allowed, otherwise nanos until a token is available
+     */
+    long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = tat.get();
+            long base = Math.max(current, nowNanos);
+            long next = base + emissionIntervalNanos;
+
+            long overBy = next - nowNanos - burstNanos;
+            if (overBy > 0) return overBy;
+
+            if (tat.compareAndSet(current, next)) return 0;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.kiks.dishdashapi.config;
+
+import com.password4j.Argon2Function;
+import org.springframework.security.crypto.password4j.Argon2Password4jPasswordEncoder;
+
+/**
+ * Argon2 encoder that reports stored hashes weaker than a floor (less memory, fewer passes,
+ * another variant) as needing an upgrade, so they get re-hashed after the next login.
+ * Hashes at or above the floor are left alone even if they differ from what this encoder
+ * produces: nodes that calibrated differently don't keep re-hashing each other's output.
+ */
+public class TunedArgon2PasswordEncoder extends Argon2Password4jPasswordEncoder {
+
+    private final Argon2Function function;
+
+    private final Argon2Function floor;
+
+    public TunedArgon2PasswordEncoder(Argon2Function function) {
+        this(function, function);
+    }
+
+    public TunedArgon2PasswordEncoder(Argon2Function function, Argon2Function floor) {
+        super(function);
+        this.function = function;
+        this.floor = floor;
+    }
+
+    public Argon2Function getFunction() {
+        return function;
+    }
+
+    @Override
+    protected boolean upgradeEncodingNonNull(String encodedPassword) {
+        Argon2Function stored;
+        try {
+            stored = Argon2Function.getInstanceFromHash(encodedPassword);
+        } catch (RuntimeException e) {
+            // not an Argon2 hash we can read -> nothing sensible to compare against
+            return false;
+        }
+        return stored.getMemory() < floor.getMemory()
+                || stored.getIterations() < floor.getIterations()
+                || stored.getVariant() != floor.getVariant();
+    }
+}
@@ -0,0 +1,59 @@
+package com.kiks.dishdashapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Extra wiring for the virtual-thread mode ({@code spring.threads.virtual.enabled=true}).
+ * Boot already runs Tomcat, {@code @Scheduled} and {@code @Async} work on virtual threads in that mode;
+ * this adds backpressure in front of the connection pool, because virtual threads are
+ * cheap enough that thousands of them can otherwise queue up inside Hikari.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionPermitPostProcessor(Environment env, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // delegating wrappers (this one, the read/write routing proxy) lead to pools that get their own permits
+                if (!(bean instanceof DataSource ds) || bean instanceof DelegatingDataSource) return bean;
+
+                int poolSize = (ds instanceof HikariDataSource hikari) ? hikari.getMaximumPoolSize()
+                        : env.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                long connectionTimeout = (ds instanceof HikariDataSource hikari) ? hikari.getConnectionTimeout()
+                        : env.getProperty("spring.datasource.hikari.connection-timeout", Long.class, 30_000L);
+
+                int permits = env.getProperty("datasource.permits.max", Integer.class, poolSize);
+                // wait as long as Hikari itself would have
+                Duration timeout = env.getProperty("datasource.permits.timeout", Duration.class,
+                        Duration.ofMillis(connectionTimeout));
+
+                ConnectionPermitDataSource guarded = new ConnectionPermitDataSource(ds, permits, timeout);
+                meterRegistry.ifAvailable(registry -> {
+                    Gauge.builder("datasource.permits.available", guarded, ConnectionPermitDataSource::availablePermits)
+                            .tag("name", beanName)
+                            .register(registry);
+                    Gauge.builder("datasource.permits.waiting", guarded, ConnectionPermitDataSource::waiting)
+                            .tag("name", beanName)
+                            .register(registry);
+                });
+                return guarded;
+            }
+        };
+    }
+}
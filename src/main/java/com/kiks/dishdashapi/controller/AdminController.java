@@ -0,0 +1,78 @@
+package com.kiks.dishdashapi.controller;
+
+import com.kiks.dishdashapi.service.BulkImportService;
+import com.kiks.dishdashapi.service.BulkImportService.Format;
+import com.kiks.dishdashapi.service.BulkImportService.ImportReport;
+import com.kiks.dishdashapi.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.Instant;
+
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    public record AccountStatusRequest(String email, Boolean enabled, Instant lockedUntil) {}
+
+    public record PasswordRequest(String email, String password) {}
+
+    private final BulkImportService bulkImportService;
+
+    private final UserService userService;
+
+    public AdminController(BulkImportService bulkImportService, UserService userService) {
+        this.bulkImportService = bulkImportService;
+        this.userService = userService;
+    }
+
+    /**
+     * One user per line. The body is read as a stream, so the file never has to fit in memory.
+     * Bad rows are reported back and skipped; the rest are imported.
+     */
+    @PostMapping(path = "/users/import", consumes = "application/x-ndjson")
+    public ImportReport importNdjson(HttpServletRequest request) throws IOException {
+        return bulkImportService.importUsers(request.getInputStream(), Format.NDJSON);
+    }
+
+    /** First line is the header: fullName,email,password,dateOfBirth (any order). */
+    @PostMapping(path = "/users/import", consumes = "text/csv")
+    public ImportReport importCsv(HttpServletRequest request) throws IOException {
+        return bulkImportService.importUsers(request.getInputStream(), Format.CSV);
+    }
+
+    /**
+     * Enables/disables or locks a user (lockedUntil null unlocks). Disabling or locking
+     * also revokes the user's access tokens and refresh sessions on every node.
+     */
+    @PostMapping("/users/status")
+    public ResponseEntity<?> updateAccountStatus(@RequestBody AccountStatusRequest req) {
+        if (req.email() == null || req.email().isBlank() || req.enabled() == null) {
+            return ResponseEntity.badRequest().body("Email and enabled are required");
+        }
+
+        if (!userService.updateAccountStatus(req.email(), req.enabled(), req.lockedUntil())) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
+        }
+        return ResponseEntity.ok("Account status updated");
+    }
+
+    /** Sets a user's password; tokens issued before stop being accepted and refresh sessions end. */
+    @PostMapping("/users/password")
+    public ResponseEntity<?> updatePassword(@RequestBody PasswordRequest req) {
+        if (req.email() == null || req.email().isBlank() || req.password() == null || req.password().isBlank()) {
+            return ResponseEntity.badRequest().body("Email and password are required");
+        }
+
+        if (!userService.updatePassword(req.email(), req.password())) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
+        }
+        return ResponseEntity.ok("Password updated");
+    }
+}
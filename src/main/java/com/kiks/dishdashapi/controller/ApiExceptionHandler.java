@@ -0,0 +1,36 @@
+package com.kiks.dishdashapi.controller;
+
+import com.kiks.dishdashapi.service.EmailAlreadyRegisteredException;
+import com.kiks.dishdashapi.service.PasswordHashingRejectedException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    // Hashing pool saturated -> tell the client to back off instead of tying up a thread
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<?> hashingRejected(PasswordHashingRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body("Server busy. Try again shortly");
+    }
+
+    // No database connection within the wait limit (pool or connection permits exhausted)
+    @ExceptionHandler({TransientDataAccessException.class, CannotCreateTransactionException.class})
+    public ResponseEntity<?> databaseBusy(Exception e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body("Server busy. Try again shortly");
+    }
+
+    @ExceptionHandler(EmailAlreadyRegisteredException.class)
+    public ResponseEntity<?> emailTaken(EmailAlreadyRegisteredException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("Email already registered");
+    }
+}
@@ -1,19 +1,36 @@
 package com.kiks.dishdashapi.controller;
 
 import com.kiks.dishdashapi.model.User;
+import com.kiks.dishdashapi.model.UserPrincipal;
+import com.kiks.dishdashapi.service.AuthEventJournal;
+import com.kiks.dishdashapi.service.AuthEventType;
 import com.kiks.dishdashapi.service.JwtService;
+import com.kiks.dishdashapi.service.NotificationDispatcher;
 import com.kiks.dishdashapi.service.OtpService;
+import com.kiks.dishdashapi.service.RefreshTokenService;
+import com.kiks.dishdashapi.service.TokenRevocationService;
 import com.kiks.dishdashapi.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.CookieValue;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
+import java.util.Locale;
 import java.util.Map;
 
 @RestController
@@ -21,6 +38,10 @@ import java.util.Map;
 public class UserController {
     public record OtpRequest(String email) {}
 
+    public record RefreshRequest(String refreshToken) {}
+
+    static final String REFRESH_COOKIE = "refresh_token";
+
 
     private final UserService service;
 
@@ -28,14 +49,33 @@ public class UserController {
 
     private final OtpService otpService;
 
+    private final NotificationDispatcher notifications;
+
+    private final RefreshTokenService refreshTokens;
+
+    private final TokenRevocationService revocations;
+
+    private final AuthEventJournal journal;
+
+    private final boolean secureCookie;
+
     final
     AuthenticationManager authenticationManager;
 
-    public UserController(UserService service, JwtService jwtService, OtpService otpService, AuthenticationManager authenticationManager) {
+    public UserController(UserService service, JwtService jwtService, OtpService otpService,
+                          NotificationDispatcher notifications, RefreshTokenService refreshTokens,
+                          TokenRevocationService revocations, AuthEventJournal journal,
+                          AuthenticationManager authenticationManager,
+                          @Value("${refresh.cookie.secure:true}") boolean secureCookie) {
         this.service = service;
         this.jwtService = jwtService;
         this.otpService = otpService;
+        this.notifications = notifications;
+        this.refreshTokens = refreshTokens;
+        this.revocations = revocations;
+        this.journal = journal;
         this.authenticationManager = authenticationManager;
+        this.secureCookie = secureCookie;
     }
 
     @PostMapping("/register")
@@ -43,39 +83,118 @@ public class UserController {
         return service.saveUser(user);
     }
 
+    /** Body is the access token, as before; the refresh token goes in an HttpOnly cookie scoped to /auth. */
     @PostMapping("/login")
-    public String login(@RequestBody User user){
+    public ResponseEntity<String> login(@RequestBody User user){
+
+        Authentication authentication;
+        try {
+            authentication = authenticationManager
+                    .authenticate(new UsernamePasswordAuthenticationToken(user.getEmail(), user.getPassword()));
+        } catch (AuthenticationException e) {
+            journal.record(AuthEventType.LOGIN_FAILED, User.normalizeEmail(user.getEmail()), loginFailure(e));
+            throw e;
+        }
 
-        Authentication authentication = authenticationManager
-                .authenticate(new UsernamePasswordAuthenticationToken(user.getEmail(), user.getPassword()));
+        if(!authentication.isAuthenticated()) {
+            journal.record(AuthEventType.LOGIN_FAILED, User.normalizeEmail(user.getEmail()), AuthEventJournal.LOGIN_OTHER);
+            return ResponseEntity.ok("Login Failed");
+        }
 
-        if(authentication.isAuthenticated())
-            return jwtService.generateToken(user.getEmail());
-        else
-            return "Login Failed";
+        journal.record(AuthEventType.LOGIN_SUCCEEDED, authentication.getName());
+        if (authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.SET_COOKIE, refreshCookie(refreshTokens.issue(principal), refreshTokens.ttl()))
+                    .body(jwtService.generateToken(principal));
+        }
+        return ResponseEntity.ok(jwtService.generateToken(user.getEmail()));
 
     }
 
+    /**
+     * New access token for a refresh token (cookie, or body for non-browser clients), without a password check.
+     * The refresh token is single-use: the response carries its successor.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<String> refresh(@CookieValue(name = REFRESH_COOKIE, required = false) String cookie,
+                                          @RequestBody(required = false) RefreshRequest req) {
+        String token = (cookie != null) ? cookie : (req == null) ? null : req.refreshToken();
+
+        if (token == null || token.isBlank()) {
+            return ResponseEntity.badRequest().body("Refresh token is required");
+        }
+
+        RefreshTokenService.Refreshed refreshed = refreshTokens.refresh(token);
+        if (refreshed == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .header(HttpHeaders.SET_COOKIE, refreshCookie("", Duration.ZERO))
+                    .body("Invalid or expired refresh token");
+        }
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, refreshCookie(refreshed.refreshToken(), refreshTokens.ttl()))
+                .body(jwtService.generateToken(refreshed.principal()));
+    }
+
+    /**
+     * Revokes the presented access token right away (not at its expiry) and ends the refresh session
+     * of the refresh token, if one is sent (cookie, or body for non-browser clients).
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<String> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                         @CookieValue(name = REFRESH_COOKIE, required = false) String cookie,
+                                         @RequestBody(required = false) RefreshRequest req) {
+        // the security chain only lets authenticated requests in, so the header holds a valid token
+        JwtService.VerifiedClaims claims = jwtService.verify(authorization.substring("Bearer ".length()));
+        if (claims != null && claims.tokenId() != null) {
+            revocations.revokeToken(claims.tokenId(), claims.expiresAt());
+        }
+
+        refreshTokens.revoke((cookie != null) ? cookie : (req == null) ? null : req.refreshToken());
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, refreshCookie("", Duration.ZERO))
+                .body("Logged out");
+    }
+
+    // unknown users come back as bad credentials too (hideUserNotFoundExceptions)
+    private static long loginFailure(AuthenticationException e) {
+        if (e instanceof BadCredentialsException) return AuthEventJournal.LOGIN_BAD_CREDENTIALS;
+        if (e instanceof DisabledException) return AuthEventJournal.LOGIN_DISABLED;
+        if (e instanceof LockedException) return AuthEventJournal.LOGIN_LOCKED;
+        return AuthEventJournal.LOGIN_OTHER;
+    }
+
+    // Scoped to /auth so it reaches /auth/refresh and /auth/logout only
+    private String refreshCookie(String value, Duration maxAge) {
+        return ResponseCookie.from(REFRESH_COOKIE, value)
+                .httpOnly(true)
+                .secure(secureCookie)
+                .sameSite("Strict")
+                .path("/auth")
+                .maxAge(maxAge)
+                .build()
+                .toString();
+    }
+
     @PostMapping("/request-otp")
     public ResponseEntity<?> requestOtp(@RequestBody OtpRequest req) {
-        String email = (req.email() == null) ? null : req.email().trim().toLowerCase();
+        String email = (req.email() == null) ? null : req.email().trim().toLowerCase(Locale.ROOT);
 
         if (email == null || email.isBlank()) {
             return ResponseEntity.badRequest().body("Email is required");
         }
 
-        // Security: don’t reveal existence
-        if (!service.existByEmail(email)) {
+        // Security: don’t reveal existence. Confirmed: a user just registered on another node gets the code
+        if (!service.existByEmailConfirmed(email)) {
             return ResponseEntity.ok("If the email exists, an OTP has been sent.");
         }
 
-        String key = "otp:email:" + email;
-
-        String otp = otpService.generateAndStoreOtp(key);
+        int otp = otpService.generateAndStoreOtp(email);
 
         // Cooldown hit
-        if (otp == null) {
-            var next = otpService.getNextAllowedRequestTime(key);
+        if (otp == OtpService.NO_CODE) {
+            var next = otpService.getNextAllowedRequestTime(email);
             long secondsLeft = Math.max(0, java.time.Duration.between(java.time.Instant.now(), next).getSeconds());
 
             return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
@@ -83,8 +202,13 @@ public class UserController {
                     .body("Too many requests. Try again in " + secondsLeft + "s");
         }
 
-        // TODO: send via email service; printing for dev only
-        System.out.println("otp: " + otp);
+        // Delivery happens on the notification workers; we only wait for the enqueue.
+        // A code that never left must not hold the cooldown, or the retry gets a 429
+        if (!notifications.enqueue(email, "Your DishDash verification code is " + OtpService.format(otp))) {
+            otpService.withdrawOtp(email, otp);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Could not send OTP right now. Try again later");
+        }
 
         return ResponseEntity.ok("OTP sent");
     }
@@ -93,16 +217,15 @@ public class UserController {
 
     @PostMapping("/verify-otp")
     public ResponseEntity<?> verifyOtp(@RequestBody OtpVerifyRequest req) {
-        String email = (req.email() == null) ? null : req.email().trim().toLowerCase();
-        String otp = (req.otp() == null) ? null : req.otp().trim();
+        String email = (req.email() == null) ? null : req.email().trim().toLowerCase(Locale.ROOT);
+        String otp = req.otp();
 
         if (email == null || email.isBlank() || otp == null || otp.isBlank()) {
             return ResponseEntity.badRequest().body("Email and OTP are required");
         }
 
-        String key = "otp:email:" + email;
-
-        String resetToken = otpService.verifyOtpAndIssueResetToken(key, otp);
+        // OTP state is keyed by the normalized email; the code is parsed to an int, surrounding whitespace ignored
+        String resetToken = otpService.verifyOtpAndIssueResetToken(email, otp);
 
         // null means: invalid / expired / too many attempts (OTP invalidated)
         if (resetToken == null) {
@@ -113,6 +236,26 @@ public class UserController {
         return ResponseEntity.ok(Map.of("resetToken", resetToken));
     }
 
+    public record PasswordResetRequest(String email, String resetToken, String newPassword) {}
+
+    /** Sets a new password with the reset token from /auth/verify-otp; existing sessions end. */
+    @PostMapping("/reset-password")
+    public ResponseEntity<?> resetPassword(@RequestBody PasswordResetRequest req) {
+        String email = User.normalizeEmail(req.email());
+
+        if (email == null || email.isBlank() || req.resetToken() == null || req.resetToken().isBlank()
+                || req.newPassword() == null || req.newPassword().isBlank()) {
+            return ResponseEntity.badRequest().body("Email, reset token and new password are required");
+        }
+
+        // single use: consumed even if the update below finds no user
+        if (!otpService.verifyResetToken(req.resetToken(), email) || !service.updatePassword(email, req.newPassword())) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid or expired reset token");
+        }
+
+        return ResponseEntity.ok("Password updated");
+    }
+
 
 
 
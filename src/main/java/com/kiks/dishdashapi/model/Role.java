@@ -0,0 +1,27 @@
+package com.kiks.dishdashapi.model;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+/**
+ * Stored in users.role. Granted only through the database (see V11), never through the API.
+ */
+public enum Role {
+
+    USER(List.of(new SimpleGrantedAuthority("USER"))),
+
+    // everything a user can do, plus /admin/** and the actuator
+    ADMIN(List.of(new SimpleGrantedAuthority("USER"), new SimpleGrantedAuthority("ADMIN")));
+
+    private final List<GrantedAuthority> authorities;
+
+    Role(List<GrantedAuthority> authorities) {
+        this.authorities = authorities;
+    }
+
+    public List<GrantedAuthority> authorities() {
+        return authorities;
+    }
+}
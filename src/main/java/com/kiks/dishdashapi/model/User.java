@@ -1,17 +1,26 @@
 package com.kiks.dishdashapi.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.CreationTimestamp;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Locale;
 
 @Data
 @Entity
-@Table(name = "users")
+@Table(name = "users",
+        uniqueConstraints = @UniqueConstraint(name = "uk_users_email", columnNames = "email"),
+        indexes = @Index(name = "idx_users_date_of_birth", columnList = "dateOfBirth"))
 public class User {
 
+    // pooled sequence: ids come 50 at a time and inserts can be JDBC-batched (IDENTITY can't)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -20,10 +29,48 @@ public class User {
     @Column(nullable = false)
     private String password;
 
-    @Column(nullable = false, unique = true)
+    // always stored trimmed and lower-cased, see normalizeEmail()
+    @Column(nullable = false)
     private String email;
 
     private LocalDate dateOfBirth;
 
     private Boolean isVerified = false;
+
+    // bumped on every password change so older tokens can be told apart
+    @Column(nullable = false)
+    private Integer credentialVersion = 0;
+
+    // account status, changed by admins only (see UserService.updateAccountStatus)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(nullable = false)
+    private Boolean enabled = true;
+
+    // locked while in the future; null means never locked
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant lockedUntil;
+
+    // set in the database only (see V11), so registration can't pick its own
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Enumerated(EnumType.STRING)
+    @ColumnDefault("'USER'")
+    @Column(nullable = false, length = 16)
+    private Role role = Role.USER;
+
+    // lets other nodes pick up new registrations incrementally (see EmailExistenceFilter);
+    // the stored value is the database clock's, a trigger overwrites this node's (V10)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    @PreUpdate
+    void normalize() {
+        email = normalizeEmail(email);
+    }
+
+    public static String normalizeEmail(String email) {
+        return (email == null) ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
 }
@@ -0,0 +1,22 @@
+package com.kiks.dishdashapi.model;
+
+import java.time.Instant;
+
+/**
+ * The only columns the login/JWT path needs; loaded instead of the whole {@link User} row.
+ */
+public record UserCredentials(Long id, String email, String password, Integer credentialVersion,
+                              Boolean enabled, Instant lockedUntil, Role role) {
+
+    public User toUser() {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setPassword(password);
+        user.setCredentialVersion(credentialVersion);
+        user.setEnabled(enabled);
+        user.setLockedUntil(lockedUntil);
+        user.setRole(role);
+        return user;
+    }
+}
@@ -2,24 +2,41 @@ package com.kiks.dishdashapi.model;
 
 import org.jspecify.annotations.Nullable;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Instant;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
 
 public class UserPrincipal implements UserDetails {
 
     private User user;
 
+    private final Collection<? extends GrantedAuthority> authorities;
+
+    // authorities from the user's role; a row without one is a plain user
     public UserPrincipal(User user) {
+        this(user, (user.getRole() == null) ? Role.USER.authorities() : user.getRole().authorities());
+    }
+
+    public UserPrincipal(User user, Collection<? extends GrantedAuthority> authorities) {
         this.user=user;
+        this.authorities=authorities;
+    }
+
+    public Long getId() {
+        return user.getId();
     }
 
+    public int getCredentialVersion() {
+        return (user.getCredentialVersion() == null) ? 0 : user.getCredentialVersion();
+    }
+
+    // A disabled or locked user can't log in or refresh; tokens they already hold
+    // are refused through TokenRevocationService
+
     @Override
     public boolean isEnabled() {
-        return true;
+        return !Boolean.FALSE.equals(user.getEnabled());
     }
 
     @Override
@@ -29,7 +46,7 @@ public class UserPrincipal implements UserDetails {
 
     @Override
     public boolean isAccountNonLocked() {
-        return true;
+        return user.getLockedUntil() == null || Instant.now().isAfter(user.getLockedUntil());
     }
 
     @Override
@@ -49,6 +66,6 @@ public class UserPrincipal implements UserDetails {
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.singleton(new SimpleGrantedAuthority("USER"));
+        return authorities;
     }
 }
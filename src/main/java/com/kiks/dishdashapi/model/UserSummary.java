@@ -0,0 +1,8 @@
+package com.kiks.dishdashapi.model;
+
+import java.time.LocalDate;
+
+/**
+ * Password-free view of a user for listings.
+ */
+public record UserSummary(Long id, String fullName, String email, LocalDate dateOfBirth) {}
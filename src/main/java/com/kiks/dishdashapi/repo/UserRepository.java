@@ -1,20 +1,93 @@
 package com.kiks.dishdashapi.repo;
 
 import com.kiks.dishdashapi.model.User;
+import com.kiks.dishdashapi.model.UserCredentials;
+import com.kiks.dishdashapi.model.UserSummary;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+/**
+ * Emails are stored normalized (see {@link User}), so callers must pass
+ * {@link User#normalizeEmail(String) normalized} emails to the lookups below.
+ * The query methods below run read-only (on a replica, when one is configured) unless they join a
+ * read-write transaction; the inherited save/delete methods keep their read-write transactions.
+ */
 @Repository
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByFullName(String fullName);
     User findByEmail(String email);
     boolean existsByEmail(String email);
-    List<User> findAllByDateOfBirth(LocalDate dateOfBirth);
 
-    String email(String email);
+    // Auth path: the credential, status and role columns through the unique email index instead of the whole row
+    @Query("select new com.kiks.dishdashapi.model.UserCredentials(u.id, u.email, u.password, u.credentialVersion, "
+            + "u.enabled, u.lockedUntil, u.role) "
+            + "from User u where u.email = :email")
+    Optional<UserCredentials> findCredentialsByEmail(String email);
+
+    @Query("select u.credentialVersion from User u where u.email = :email")
+    Optional<Integer> findCredentialVersionByEmail(String email);
+
+    /** A password change: the new hash and the next credential version, no other column. */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.password = :password, u.credentialVersion = u.credentialVersion + 1 "
+            + "where u.email = :email")
+    int changePassword(String email, String password);
+
+    // a re-hash of the same password: only if the hash is still the one the login verified
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.password = :newHash where u.email = :email and u.password = :seenHash")
+    int upgradePassword(String email, String seenHash, String newHash);
+
+    /** An admin status change: the two status columns only, so a concurrent password change survives it. */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.enabled = :enabled, u.lockedUntil = :lockedUntil where u.email = :email")
+    int updateAccountStatus(String email, boolean enabled, Instant lockedUntil);
+
+    @Query("select new com.kiks.dishdashapi.model.UserSummary(u.id, u.fullName, u.email, u.dateOfBirth) "
+            + "from User u where u.dateOfBirth = :dateOfBirth order by u.id")
+    Slice<UserSummary> findAllByDateOfBirth(LocalDate dateOfBirth, Pageable pageable);
+
+    @Query("select u.email from User u where u.email in :emails")
+    Set<String> findExistingEmails(Collection<String> emails);
+
+    /** Must be consumed inside a transaction and closed. */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select new com.kiks.dishdashapi.model.UserSummary(u.id, u.fullName, u.email, u.dateOfBirth) "
+            + "from User u where u.dateOfBirth = :dateOfBirth order by u.id")
+    Stream<UserSummary> streamAllByDateOfBirth(LocalDate dateOfBirth);
+
+    /** Every email, for building the existence filter. Must be consumed inside a transaction and closed. */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select u.email from User u")
+    Stream<String> streamAllEmails();
+
+    @Query("select u.email from User u where u.createdAt >= :since")
+    List<String> findEmailsCreatedSince(Instant since);
+
+    /** The database's clock, which also stamps users.created_at. */
+    @Query("select current_instant")
+    Instant databaseNow();
 }
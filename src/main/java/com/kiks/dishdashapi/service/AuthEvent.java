@@ -0,0 +1,10 @@
+package com.kiks.dishdashapi.service;
+
+import java.time.Instant;
+
+/**
+ * One record read back from the {@link AuthEventJournal}.
+ * @param subject the normalized email (or whatever identified the client), possibly truncated
+ */
+public record AuthEvent(Instant timestamp, AuthEventType type, String subject, long detail) {
+}
@@ -0,0 +1,322 @@
+package com.kiks.dishdashapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of auth events (logins, OTPs, token issuance) in memory-mapped segment files,
+ * read back with {@link AuthEventReader} or the AuthJournalCli.
+ * - {@link #record} claims space with one atomic add (and counts itself in and out of the segment)
+ *   and writes straight into the mapping: no lock,
+ *   no allocation, no system call. The record becomes visible to readers when its length is published
+ *   last, so concurrent writers never expose half a record. Only the writer that finds a segment full
+ *   takes a lock, to map the next one.
+ * - A full segment is sealed by the last writer still publishing into it, so a reader can tell a record
+ *   that is still being written from the end of the segment. Segments of an earlier process are sealed at
+ *   startup.
+ * - Segments are {@code auth.journal.segment-size} files named by sequence number; a restart starts a new
+ *   one. Beyond {@code auth.journal.max-segments} the oldest are deleted.
+ * - The OS writes the pages back, so a crash of the JVM loses nothing; {@code auth.journal.flush-interval}
+ *   bounds what a crash of the machine can lose.
+ * Writing never fails a request: if no segment can be mapped, events are dropped and counted.
+ * <p>
+ * Layout, little-endian. Segment: int magic, int version, long sequence, int sealed (0 or 1), int 0,
+ * then records from byte 24 (version 1, unsealable: records from byte 16).
+ * Record, 8-byte aligned: int length (0 = not yet written, negative = rest of the segment unused),
+ * byte type, byte 0, short subject length, long epoch millis, long detail, subject UTF-8.
+ */
+@Component
+public class AuthEventJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthEventJournal.class);
+
+    /** {@link AuthEventType#LOGIN_FAILED} details */
+    public static final long LOGIN_OTHER = 0;
+    public static final long LOGIN_BAD_CREDENTIALS = 1;
+    public static final long LOGIN_DISABLED = 2;
+    public static final long LOGIN_LOCKED = 3;
+
+    static final int MAGIC = 0x414a4e4c; // "AJNL"
+    static final int VERSION = 2;
+    static final int SEALED = 16;
+    static final int SEGMENT_HEADER = 24;
+    static final int V1_SEGMENT_HEADER = 16;
+    static final int RECORD_HEADER = 24;
+    static final int MAX_SUBJECT_BYTES = 512;
+    static final String SUFFIX = ".journal";
+
+    // release/acquire on the length word is what publishes a record
+    static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentSize;
+    private final int maxSegments;
+
+    // null before open(), after close(), or while no segment can be mapped
+    private volatile Segment current;
+    private long nextSequence;
+
+    private final Counter recorded;
+    private final Counter dropped;
+
+    public AuthEventJournal(@Value("${auth.journal.enabled:true}") boolean enabled,
+                            @Value("${auth.journal.dir:auth-journal}") String dir,
+                            @Value("${auth.journal.segment-size:64MB}") DataSize segmentSize,
+                            @Value("${auth.journal.max-segments:32}") int maxSegments,
+                            MeterRegistry meterRegistry) {
+        if (segmentSize.toBytes() < 4096 || segmentSize.toBytes() > MAX_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("auth.journal.segment-size must be between 4KB and 1GB");
+        }
+        this.enabled = enabled;
+        this.dir = Path.of(dir);
+        this.segmentSize = (int) segmentSize.toBytes() & ~7;
+        this.maxSegments = Math.max(1, maxSegments);
+
+        this.recorded = Counter.builder("auth.journal.events")
+                .tag("outcome", "recorded")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("auth.journal.events")
+                .tag("outcome", "dropped")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!enabled) return;
+        Files.createDirectories(dir);
+        List<Path> existing = segments(dir);
+        // nothing of an earlier process is still writing into these
+        for (Path old : existing) seal(old);
+        nextSequence = existing.isEmpty() ? 0 : sequence(existing.getLast()) + 1;
+        current = newSegment();
+        log.info("Auth event journal in {}, segment {}", dir.toAbsolutePath(), current.sequence);
+    }
+
+    public void record(AuthEventType type, String subject) {
+        record(type, subject, 0);
+    }
+
+    public void record(AuthEventType type, String subject, long detail) {
+        Segment s = current;
+        if (s == null) {
+            if (enabled) dropped.increment();
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        int subjectBytes = utf8Length(subject);
+        int size = (RECORD_HEADER + subjectBytes + 7) & ~7;
+
+        while (true) {
+            s.writers.incrementAndGet();
+            int pos = s.tail.getAndAdd(size);
+            if (pos + size <= s.capacity) {
+                s.write(pos, size, type, now, detail, subject, subjectBytes);
+                s.release();
+                recorded.increment();
+                return;
+            }
+            // the writer that crosses the end marks it; later ones only find the segment full
+            if (pos < s.capacity) INT.setRelease(s.buffer, pos, pos - s.capacity);
+            s.full = true;
+            s.release();
+
+            s = roll(s);
+            if (s == null) {
+                dropped.increment();
+                return;
+            }
+        }
+    }
+
+    private synchronized Segment roll(Segment full) {
+        if (current != full) return current;
+        try {
+            current = newSegment();
+        } catch (IOException e) {
+            log.warn("Could not start a new auth journal segment, dropping events until the next flush", e);
+            current = null;
+        }
+        return current;
+    }
+
+    // caller holds the lock
+    private Segment newSegment() throws IOException {
+        long sequence = nextSequence++;
+        Path path = dir.resolve(fileName(sequence));
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, sequence);
+        INT.setRelease(buffer, 0, MAGIC);
+
+        for (Path old : segments(dir)) {
+            if (sequence(old) <= sequence - maxSegments) Files.deleteIfExists(old);
+        }
+        return new Segment(sequence, buffer, segmentSize);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.journal.flush-interval:PT1S}")
+    public void flush() {
+        if (!enabled) return;
+        Segment s = current;
+        if (s != null) {
+            s.buffer.force();
+            return;
+        }
+        synchronized (this) {
+            if (current == null && nextSequence >= 0) {
+                try {
+                    current = newSegment();
+                } catch (IOException e) {
+                    log.warn("Auth journal still unavailable: {}", e.toString());
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        Segment s = current;
+        current = null;
+        nextSequence = -1;
+        if (s != null) s.buffer.force();
+    }
+
+    /* ================= Format ================= */
+
+    private static void seal(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < SEGMENT_HEADER) return;
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_HEADER);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if ((int) INT.getAcquire(header, 0) == MAGIC && header.getInt(4) >= 2) INT.setRelease(header, SEALED, 1);
+        }
+    }
+
+    static String fileName(long sequence) {
+        return String.format("%020d", sequence) + SUFFIX;
+    }
+
+    static long sequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    /** Segment files in {@code dir}, oldest first. */
+    static List<Path> segments(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> segments = new ArrayList<>(files
+                    .filter(p -> p.getFileName().toString().matches("\\d{20}\\" + SUFFIX))
+                    .toList());
+            segments.sort(null);
+            return segments;
+        }
+    }
+
+    // bytes of the UTF-8 encoding, stopping at a whole character within MAX_SUBJECT_BYTES
+    static int utf8Length(String s) {
+        if (s == null) return 0;
+        int bytes = 0;
+        for (int i = 0; i < s.length(); i++) {
+            int n = utf8Width(s, i);
+            if (bytes + n > MAX_SUBJECT_BYTES) break;
+            bytes += n;
+            if (n == 4) i++;
+        }
+        return bytes;
+    }
+
+    private static int utf8Width(String s, int i) {
+        char c = s.charAt(i);
+        if (c < 0x80) return 1;
+        if (c < 0x800) return 2;
+        if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) return 4;
+        return 3;
+    }
+
+    private static final class Segment {
+
+        final long sequence;
+        final MappedByteBuffer buffer;
+        final int capacity;
+        final AtomicInteger tail = new AtomicInteger(SEGMENT_HEADER);
+
+        // writers between claiming and publishing; once the segment is full, the last one out seals it
+        final AtomicInteger writers = new AtomicInteger();
+        volatile boolean full;
+
+        Segment(long sequence, MappedByteBuffer buffer, int capacity) {
+            this.sequence = sequence;
+            this.buffer = buffer;
+            this.capacity = capacity;
+        }
+
+        void release() {
+            // full is set before the releasing writer's decrement, so whoever reaches zero after it sees it
+            if (writers.decrementAndGet() == 0 && full) INT.setRelease(buffer, SEALED, 1);
+        }
+
+        // absolute puts only: writers share the buffer but never its position
+        void write(int pos, int size, AuthEventType type, long timestamp, long detail, String subject, int subjectBytes) {
+            buffer.put(pos + 4, type.code);
+            buffer.putShort(pos + 6, (short) subjectBytes);
+            buffer.putLong(pos + 8, timestamp);
+            buffer.putLong(pos + 16, detail);
+
+            int at = pos + RECORD_HEADER;
+            int end = at + subjectBytes;
+            for (int i = 0; at < end; i++) {
+                int n = utf8Width(subject, i);
+                char c = subject.charAt(i);
+                if (n == 1) {
+                    buffer.put(at++, (byte) c);
+                } else if (n == 2) {
+                    buffer.put(at++, (byte) (0xc0 | (c >> 6)));
+                    buffer.put(at++, (byte) (0x80 | (c & 0x3f)));
+                } else if (n == 3) {
+                    buffer.put(at++, (byte) (0xe0 | (c >> 12)));
+                    buffer.put(at++, (byte) (0x80 | ((c >> 6) & 0x3f)));
+                    buffer.put(at++, (byte) (0x80 | (c & 0x3f)));
+                } else {
+                    int cp = Character.toCodePoint(c, subject.charAt(++i));
+                    buffer.put(at++, (byte) (0xf0 | (cp >> 18)));
+                    buffer.put(at++, (byte) (0x80 | ((cp >> 12) & 0x3f)));
+                    buffer.put(at++, (byte) (0x80 | ((cp >> 6) & 0x3f)));
+                    buffer.put(at++, (byte) (0x80 | (cp & 0x3f)));
+                }
+            }
+            INT.setRelease(buffer, pos, size);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.kiks.dishdashapi.service;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+import static com.kiks.dishdashapi.service.AuthEventJournal.INT;
+import static com.kiks.dishdashapi.service.AuthEventJournal.MAGIC;
+import static com.kiks.dishdashapi.service.AuthEventJournal.RECORD_HEADER;
+import static com.kiks.dishdashapi.service.AuthEventJournal.SEALED;
+import static com.kiks.dishdashapi.service.AuthEventJournal.SEGMENT_HEADER;
+import static com.kiks.dishdashapi.service.AuthEventJournal.V1_SEGMENT_HEADER;
+
+/**
+ * Reads an {@link AuthEventJournal} directory from its oldest segment on, in the same or another
+ * process, while it is being written. Each {@link #poll} delivers what was written since the last one,
+ * so calling it in a loop tails the journal. Not thread-safe; use one reader per consumer.
+ * <p>
+ * A segment ends at its end marker, or - for a segment abandoned by a restart - at its first
+ * unwritten record. An unwritten record in a segment that isn't sealed yet may still be in flight,
+ * claimed before the writers moved on to a newer segment, so the reader waits for it.
+ */
+public class AuthEventReader {
+
+    private final Path dir;
+
+    private long sequence = -1;
+    private MappedByteBuffer buffer;
+    private int offset;
+    // version 1 segments can't be sealed
+    private boolean sealable;
+
+    public AuthEventReader(Path dir) {
+        this.dir = dir;
+    }
+
+    /** Passes every event written since the previous call to {@code consumer}, in journal order. */
+    public int poll(Consumer<? super AuthEvent> consumer) throws IOException {
+        int read = 0;
+        while (true) {
+            if (buffer == null && !next()) return read;
+
+            int length = (offset + 4 <= buffer.capacity()) ? (int) INT.getAcquire(buffer, offset) : -1;
+            if (length > 0) {
+                AuthEvent event = decode(offset);
+                offset += length;
+                if (event != null) {
+                    consumer.accept(event);
+                    read++;
+                }
+                continue;
+            }
+            // nothing written here yet: it still may be, until the segment is sealed
+            if (length == 0) {
+                if (!sealed()) return read;
+                // every record claimed before the seal was published before it
+                if ((int) INT.getAcquire(buffer, offset) != 0) continue;
+            }
+            if (!next()) return read;
+        }
+    }
+
+    /** Skips everything written so far, so the next {@link #poll} only sees new events. */
+    public void seekToEnd() throws IOException {
+        poll(event -> { });
+    }
+
+    private AuthEvent decode(int at) {
+        AuthEventType type = AuthEventType.fromCode(buffer.get(at + 4));
+        if (type == null) return null; // written by a newer version
+
+        int subjectBytes = buffer.getShort(at + 6) & 0xffff;
+        byte[] subject = new byte[subjectBytes];
+        buffer.get(at + RECORD_HEADER, subject);
+        return new AuthEvent(Instant.ofEpochMilli(buffer.getLong(at + 8)), type,
+                new String(subject, StandardCharsets.UTF_8), buffer.getLong(at + 16));
+    }
+
+    // maps the oldest segment after the current one; false if there is none (yet)
+    private boolean next() throws IOException {
+        for (Path segment : AuthEventJournal.segments(dir)) {
+            long candidate = AuthEventJournal.sequence(segment);
+            if (candidate <= sequence) continue;
+
+            MappedByteBuffer mapped;
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (NoSuchFileException e) {
+                continue; // deleted by retention meanwhile
+            }
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            // still being created
+            if (mapped.capacity() < SEGMENT_HEADER || (int) INT.getAcquire(mapped, 0) != MAGIC) return false;
+
+            sequence = candidate;
+            buffer = mapped;
+            sealable = mapped.getInt(4) >= 2;
+            offset = sealable ? SEGMENT_HEADER : V1_SEGMENT_HEADER;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean sealed() throws IOException {
+        // version 1: abandoned once a newer segment exists, which could cut off a record still in flight
+        return sealable ? (int) INT.getAcquire(buffer, SEALED) != 0 : newerSegmentExists();
+    }
+
+    private boolean newerSegmentExists() throws IOException {
+        for (Path segment : AuthEventJournal.segments(dir)) {
+            if (AuthEventJournal.sequence(segment) > sequence) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,37 @@
+package com.kiks.dishdashapi.service;
+
+/**
+ * Kinds of {@link AuthEventJournal} records. The codes are what the journal stores: never reuse or renumber one.
+ * {@code detail} is per type, 0 where not listed.
+ */
+public enum AuthEventType {
+
+    LOGIN_SUCCEEDED(1),
+    /** detail: one of the {@code AuthEventJournal.LOGIN_*} reasons */
+    LOGIN_FAILED(2),
+    OTP_ISSUED(3),
+    /** a new code was asked for while the previous one's cooldown was running */
+    OTP_COOLDOWN(4),
+    OTP_VERIFIED(5),
+    /** wrong, expired or exhausted code */
+    OTP_REJECTED(6),
+    /** detail: expiry of the access token, epoch millis */
+    TOKEN_ISSUED(7);
+
+    private static final AuthEventType[] BY_CODE = new AuthEventType[8];
+
+    static {
+        for (AuthEventType type : values()) BY_CODE[type.code] = type;
+    }
+
+    final byte code;
+
+    AuthEventType(int code) {
+        this.code = (byte) code;
+    }
+
+    /** @return the type, or null for a code this version doesn't know */
+    static AuthEventType fromCode(int code) {
+        return (code > 0 && code < BY_CODE.length) ? BY_CODE[code] : null;
+    }
+}
@@ -0,0 +1,73 @@
+package com.kiks.dishdashapi.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size bloom filter over tagged strings ({@code tag} keeps e.g. token ids and emails apart
+ * without concatenating them). Lookups and inserts are lock-free, allocation-free and safe from
+ * any thread. Entries can't be removed: the owner rebuilds a fresh filter instead.
+ */
+final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashes;
+    private final int capacity;
+
+    /** Sized so {@code capacity} entries give roughly {@code falsePositiveRate}. */
+    BloomFilter(int capacity, double falsePositiveRate) {
+        this.capacity = Math.max(1, capacity);
+
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-this.capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.words = new AtomicLongArray((int) Math.max(1, (bits + 63) >>> 6));
+        this.bitCount = words.length() * 64L;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / this.capacity * ln2));
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    void put(char tag, String value) {
+        long h = hash(tag, value);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long bit = bit(h1 + i * h2);
+            words.getAndAccumulate((int) (bit >>> 6), 1L << bit, (word, mask) -> word | mask);
+        }
+    }
+
+    boolean mightContain(char tag, String value) {
+        long h = hash(tag, value);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long bit = bit(h1 + i * h2);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    // Kirsch-Mitzenmacher: the k indexes are h1 + i*h2 from one 64-bit hash
+    private long bit(int combined) {
+        return ((combined < 0) ? ~combined : combined) % bitCount;
+    }
+
+    // FNV-1a over the chars, finished with the murmur3 fmix64 avalanche
+    private static long hash(char tag, String value) {
+        long h = 0xcbf29ce484222325L ^ tag;
+        h *= 0x100000001b3L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
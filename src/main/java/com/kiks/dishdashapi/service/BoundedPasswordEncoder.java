@@ -0,0 +1,171 @@
+package com.kiks.dishdashapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs Argon2 on a small dedicated pool instead of on servlet threads.
+ * - At most {@code threads} hashes run at once, at most {@code queueCapacity} wait.
+ * - Anything beyond that (or waiting longer than {@code timeout}) fails fast
+ *   with {@link PasswordHashingRejectedException}, which the API maps to 503.
+ * - A caller that times out stops waiting, but a hash that has started runs to the end: Argon2
+ *   never checks for interrupts, so cancelling it frees no CPU. Such a hash keeps its slot until it
+ *   finishes, so {@code threads + queueCapacity} bounds admitted work, abandoned hashes included,
+ *   and not just the callers still waiting. Hashes that never started are dropped with their caller.
+ * - Concurrent {@link #matches} calls for the same password and hash (a client retrying a login)
+ *   share one verification and take one queue slot between them.
+ * Built by {@link com.kiks.dishdashapi.config.PasswordHashingConfig}.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    private final ThreadPoolExecutor pool;
+
+    // admitted hashes (queued or running, waited for or not); released when a hash ends or is dropped unstarted
+    private final Semaphore slots;
+
+    private final Duration timeout;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    private final SingleFlight<Verification, Boolean> verifications;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry,
+                                  int threads, int queueCapacity, Duration timeout) {
+        this.delegate = delegate;
+        this.timeout = timeout;
+
+        // 0 -> one hashing thread per core; Argon2 is CPU bound, more threads only add memory
+        int size = (threads > 0) ? threads : Runtime.getRuntime().availableProcessors();
+        this.pool = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.slots = new Semaphore(size + queueCapacity);
+
+        this.encodeTimer = Timer.builder("auth.hashing.duration")
+                .tag("op", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("auth.hashing.duration")
+                .tag("op", "matches")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("auth.hashing.rejected")
+                .register(meterRegistry);
+        this.verifications = new SingleFlight<>(meterRegistry, "auth.hashing.matches.calls");
+        Gauge.builder("auth.hashing.queue.depth", pool, p -> p.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("auth.hashing.active", pool, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        Gauge.builder("auth.hashing.admitted", slots, s -> size + queueCapacity - s.availablePermits())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> encodeTimer.record(() -> delegate.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return submit(() -> matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+        }
+        return verifications.execute(new Verification(encodedPassword, sha256(rawPassword)),
+                () -> submit(() -> matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword))));
+    }
+
+    // keyed by a digest so the lookup never compares raw passwords
+    private record Verification(String encodedPassword, ByteBuffer rawDigest) {}
+
+    private static ByteBuffer sha256(CharSequence raw) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(md.digest(raw.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // every JRE ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T submit(Callable<T> task) {
+        if (!slots.tryAcquire()) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException("Password hashing queue is full");
+        }
+
+        // whoever flips this owns the slot: the task when it starts, or a caller dropping it unstarted
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<T> future;
+        try {
+            future = pool.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) return null;
+                try {
+                    return task.call();
+                } finally {
+                    slots.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            rejected.increment();
+            throw new PasswordHashingRejectedException("Password hashing queue is full", e);
+        }
+
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            dropIfUnstarted(future, claimed);
+            rejected.increment();
+            throw new PasswordHashingRejectedException("Password hashing timed out", e);
+        } catch (InterruptedException e) {
+            dropIfUnstarted(future, claimed);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingRejectedException("Interrupted while hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // a hash already running can't be stopped; it releases its slot when it finishes
+    private void dropIfUnstarted(Future<?> future, AtomicBoolean claimed) {
+        if (claimed.compareAndSet(false, true)) {
+            future.cancel(false);
+            slots.release();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "argon2-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,365 @@
+package com.kiks.dishdashapi.service;
+
+import com.kiks.dishdashapi.config.TunedArgon2PasswordEncoder;
+import com.kiks.dishdashapi.model.User;
+import com.kiks.dishdashapi.repo.UserRepository;
+import com.password4j.Argon2Function;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams NDJSON or CSV user rows into the users table.
+ * Rows are read in chunks: validated, hashed in parallel on a dedicated bounded pool
+ * (so an import never queues behind or in front of logins), then persisted in one
+ * JDBC-batched transaction. If a chunk fails to commit, its rows are retried one by one
+ * so a single bad row only costs itself.
+ * Only the current chunk is held in memory: a duplicate within it is caught here, one of an
+ * earlier chunk by the existing-email check, like any other taken address. Imported users are
+ * announced like registrations ({@link UserChangedEvent}), so reads about them stay on the primary
+ * for the read-your-writes window; other nodes pick them up through their email filter sync.
+ */
+@Service
+public class BulkImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkImportService.class);
+
+    public enum Format { NDJSON, CSV }
+
+    private final UserRepository repo;
+    private final EntityManager entityManager;
+    private final TransactionTemplate tx;
+    private final PasswordEncoder encoder;
+    private final JsonMapper jsonMapper;
+    private final EmailExistenceFilter emailFilter;
+    private final ApplicationEventPublisher events;
+
+    private final int chunkSize;
+    private final int maxReportedErrors;
+    private final ThreadPoolExecutor hashingPool;
+
+    public BulkImportService(UserRepository repo,
+                             EntityManager entityManager,
+                             PlatformTransactionManager transactionManager,
+                             Argon2Function argon2Function,
+                             JsonMapper jsonMapper,
+                             EmailExistenceFilter emailFilter,
+                             ApplicationEventPublisher events,
+                             @Value("${bulk-import.chunk-size:500}") int chunkSize,
+                             @Value("${bulk-import.max-reported-errors:1000}") int maxReportedErrors,
+                             @Value("${bulk-import.hashing.threads:0}") int threads) {
+        this.repo = repo;
+        this.entityManager = entityManager;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.encoder = new TunedArgon2PasswordEncoder(argon2Function);
+        this.jsonMapper = jsonMapper;
+        this.emailFilter = emailFilter;
+        this.events = events;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxReportedErrors = maxReportedErrors;
+
+        // Default to half the cores so logins keep the other half during an import
+        int poolSize = (threads > 0) ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger n = new AtomicInteger();
+        this.hashingPool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.chunkSize),
+                r -> {
+                    Thread t = new Thread(r, "import-hash-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                // a full queue means another import is running; hash on the caller instead of failing
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingPool.shutdownNow();
+    }
+
+    public ImportReport importUsers(InputStream in, Format format) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Report report = new Report(maxReportedErrors);
+        // emails of the current chunk only; earlier chunks are committed and found by dropExisting
+        Set<String> seenEmails = new HashSet<>();
+
+        RowParser parser = (format == Format.CSV) ? csvParser(reader.readLine()) : this::parseJson;
+        long lineNo = (format == Format.CSV) ? 1 : 0;
+
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) continue;
+
+            report.rows++;
+            Row row = validate(lineNo, line, parser, seenEmails, report);
+            if (row == null) continue;
+
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                processChunk(chunk, report);
+                chunk.clear();
+                seenEmails.clear();
+            }
+        }
+        if (!chunk.isEmpty()) processChunk(chunk, report);
+
+        log.info("Bulk import: {} rows, {} imported, {} failed", report.rows, report.imported, report.failed);
+        return report.toImportReport();
+    }
+
+    /* ================= Parsing ================= */
+
+    @FunctionalInterface
+    private interface RowParser {
+        ImportRow parse(String line);
+    }
+
+    private ImportRow parseJson(String line) {
+        try {
+            return jsonMapper.readValue(line, ImportRow.class);
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("malformed JSON");
+        }
+    }
+
+    /** Header names the columns; fullName, email, password and dateOfBirth are recognised. */
+    private static RowParser csvParser(String header) {
+        if (header == null) return line -> { throw new IllegalArgumentException("missing CSV header"); };
+
+        List<String> columns = splitCsv(header);
+        int fullName = indexOf(columns, "fullName");
+        int email = indexOf(columns, "email");
+        int password = indexOf(columns, "password");
+        int dateOfBirth = indexOf(columns, "dateOfBirth");
+
+        return line -> {
+            List<String> cells = splitCsv(line);
+            String dob = cell(cells, dateOfBirth);
+            return new ImportRow(cell(cells, fullName), cell(cells, email), cell(cells, password),
+                    (dob == null || dob.isBlank()) ? null : LocalDate.parse(dob.trim()));
+        };
+    }
+
+    private static int indexOf(List<String> columns, String name) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).trim().equalsIgnoreCase(name)) return i;
+        }
+        return -1;
+    }
+
+    private static String cell(List<String> cells, int index) {
+        return (index < 0 || index >= cells.size()) ? null : cells.get(index);
+    }
+
+    // RFC 4180 fields: commas inside quotes, "" for a literal quote
+    static List<String> splitCsv(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cur.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cur.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cur.toString());
+                cur.setLength(0);
+            } else {
+                cur.append(c);
+            }
+        }
+        cells.add(cur.toString());
+        return cells;
+    }
+
+    private Row validate(long lineNo, String line, RowParser parser, Set<String> seenEmails, Report report) {
+        ImportRow parsed;
+        try {
+            parsed = parser.parse(line);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            report.fail(lineNo, null, (e instanceof DateTimeParseException) ? "invalid dateOfBirth" : e.getMessage());
+            return null;
+        }
+
+        String email = User.normalizeEmail(parsed.email());
+        if (email == null || email.isEmpty() || email.indexOf('@') <= 0) {
+            report.fail(lineNo, email, "invalid email");
+            return null;
+        }
+        if (parsed.fullName() == null || parsed.fullName().isBlank()) {
+            report.fail(lineNo, email, "fullName is required");
+            return null;
+        }
+        if (parsed.password() == null || parsed.password().isEmpty()) {
+            report.fail(lineNo, email, "password is required");
+            return null;
+        }
+        if (!seenEmails.add(email)) {
+            report.fail(lineNo, email, "duplicate email in import");
+            return null;
+        }
+        return new Row(lineNo, email, parsed);
+    }
+
+    /* ================= Chunk processing ================= */
+
+    private void processChunk(List<Row> chunk, Report report) {
+        List<Row> fresh = dropExisting(chunk, report);
+        if (fresh.isEmpty()) return;
+
+        List<String> hashes = hashAll(fresh, report);
+
+        List<User> users = new ArrayList<>(fresh.size());
+        List<Row> hashed = new ArrayList<>(fresh.size());
+        for (int i = 0; i < fresh.size(); i++) {
+            if (hashes.get(i) == null) continue;
+            users.add(fresh.get(i).toUser(hashes.get(i)));
+            hashed.add(fresh.get(i));
+        }
+        if (users.isEmpty()) return;
+
+        try {
+            persist(users);
+            report.imported += users.size();
+        } catch (RuntimeException e) {
+            log.debug("Chunk insert failed, retrying rows individually", e);
+            for (int i = 0; i < hashed.size(); i++) {
+                Row row = hashed.get(i);
+                try {
+                    // fresh entity: the failed attempt already assigned an id to the old one
+                    persist(List.of(row.toUser(users.get(i).getPassword())));
+                    report.imported++;
+                } catch (DataIntegrityViolationException violation) {
+                    // the unique email index, or another constraint: only the primary knows which
+                    boolean taken = Boolean.TRUE.equals(tx.execute(status -> repo.existsByEmail(row.email())));
+                    if (!taken) log.debug("Import row {} violates a constraint", row.line(), violation);
+                    report.fail(row.line(), row.email(), taken ? "email already exists" : "constraint violation");
+                } catch (RuntimeException other) {
+                    report.fail(row.line(), row.email(), "insert failed");
+                }
+            }
+        }
+    }
+
+    // One round trip for the whole chunk instead of an exists query per row
+    private List<Row> dropExisting(List<Row> chunk, Report report) {
+        Set<String> existing = repo.findExistingEmails(chunk.stream().map(Row::email).toList());
+        if (existing.isEmpty()) return chunk;
+
+        List<Row> fresh = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (existing.contains(row.email())) report.fail(row.line(), row.email(), "email already exists");
+            else fresh.add(row);
+        }
+        return fresh;
+    }
+
+    private List<String> hashAll(List<Row> rows, Report report) {
+        List<Future<String>> futures = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            futures.add(hashingPool.submit(() -> encoder.encode(row.data().password())));
+        }
+
+        List<String> hashes = new ArrayList<>(rows.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                hashes.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                report.fail(rows.get(i).line(), rows.get(i).email(), "password hashing failed");
+                hashes.add(null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new IllegalStateException("Bulk import interrupted", e);
+            }
+        }
+        return hashes;
+    }
+
+    // persist + flush lets hibernate.jdbc.batch_size group the inserts; clear keeps the context small
+    private void persist(List<User> users) {
+        tx.executeWithoutResult(status -> {
+            users.forEach(entityManager::persist);
+            entityManager.flush();
+            entityManager.clear();
+        });
+        for (User user : users) {
+            emailFilter.add(user.getEmail());
+            events.publishEvent(new UserChangedEvent(user.getEmail()));
+        }
+    }
+
+    /* ================= Records ================= */
+
+    public record ImportRow(String fullName, String email, String password, LocalDate dateOfBirth) {}
+
+    public record RowError(long line, String email, String error) {}
+
+    /** {@code errors} holds at most {@code bulk-import.max-reported-errors} entries; {@code failed} counts all. */
+    public record ImportReport(long rows, long imported, long failed, List<RowError> errors) {}
+
+    private record Row(long line, String email, ImportRow data) {
+
+        User toUser(String passwordHash) {
+            User user = new User();
+            user.setFullName(data.fullName());
+            user.setEmail(email);
+            user.setPassword(passwordHash);
+            user.setDateOfBirth(data.dateOfBirth());
+            return user;
+        }
+    }
+
+    private static final class Report {
+        private final int maxErrors;
+        private final List<RowError> errors = new ArrayList<>();
+        long rows;
+        long imported;
+        long failed;
+
+        Report(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void fail(long line, String email, String error) {
+            failed++;
+            if (errors.size() < maxErrors) errors.add(new RowError(line, email, error));
+        }
+
+        ImportReport toImportReport() {
+            return new ImportReport(rows, imported, failed, List.copyOf(errors));
+        }
+    }
+}
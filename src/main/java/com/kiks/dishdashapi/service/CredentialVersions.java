@@ -0,0 +1,71 @@
+package com.kiks.dishdashapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kiks.dishdashapi.model.User;
+import com.kiks.dishdashapi.repo.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The persisted credential version per user ({@code users.credential_version}, bumped by every
+ * password change), cached for {@code jwt.credential-version.cache-ttl}. Tokens carrying an older
+ * version are rejected. A change made on this node applies right away; one made on another node
+ * once the entry expires here.
+ */
+@Component
+public class CredentialVersions {
+
+    // cached for users that don't exist (any more): their tokens are never current
+    private static final int NO_USER = -1;
+
+    private final UserRepository repo;
+
+    private final ReadYourWrites readYourWrites;
+
+    private final Cache<String, Integer> versions;
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public CredentialVersions(UserRepository repo, ReadYourWrites readYourWrites,
+                              @Value("${jwt.credential-version.cache-ttl:PT30S}") Duration ttl,
+                              @Value("${jwt.credential-version.cache-max-size:100000}") long maxSize) {
+        this.repo = repo;
+        this.readYourWrites = readYourWrites;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public boolean isCurrent(String email, int tokenVersion) {
+        int current = current(User.normalizeEmail(email));
+        return current != NO_USER && tokenVersion >= current;
+    }
+
+    private int current(String email) {
+        Integer cached = versions.getIfPresent(email);
+        if (cached != null) return cached;
+
+        // queried outside the cache's compute lock, like the user cache: a virtual thread
+        // blocking on JDBC inside it would pin its carrier
+        long generation = invalidations.get();
+        int loaded = readYourWrites.read(email, () -> repo.findCredentialVersionByEmail(email), Optional::isPresent)
+                .orElse(NO_USER);
+        // a password change landed while we were reading: the next call reads again
+        if (invalidations.get() == generation) versions.put(email, loaded);
+        return loaded;
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.email() == null) return;
+        invalidations.incrementAndGet();
+        versions.invalidate(User.normalizeEmail(event.email()));
+    }
+}
@@ -0,0 +1,20 @@
+package com.kiks.dishdashapi.service;
+
+import java.io.Serial;
+
+/**
+ * Thrown when registering an email that already belongs to a user.
+ */
+public class EmailAlreadyRegisteredException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public EmailAlreadyRegisteredException(String message) {
+        super(message);
+    }
+
+    public EmailAlreadyRegisteredException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
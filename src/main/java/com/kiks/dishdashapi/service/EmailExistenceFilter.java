@@ -0,0 +1,151 @@
+package com.kiks.dishdashapi.service;
+
+import com.kiks.dishdashapi.repo.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter over every registered (normalized) email, so lookups for addresses that were
+ * never registered - typos, enumeration - are answered without a query.
+ * A "maybe" still goes to the database; "no" is definite up to the last sync, so callers that
+ * can't afford to miss a registration from another node confirm it (see UserService#existByEmailConfirmed).
+ * - Built after startup by streaming the users table; until then every email "might exist".
+ * - New users are added by {@link UserService} and {@link BulkImportService} on this node, and every
+ *   {@code auth.email-filter.sync-interval} from the users table by created_at, which picks up
+ *   registrations on other nodes. created_at and the sync cursor both come from the database clock,
+ *   so node clocks don't matter; the re-read {@code lookback} covers rows committed after a sync
+ *   that were stamped before it.
+ * - Builds and syncs read the primary: a lagging replica would move the cursor past rows it hasn't got yet.
+ * - About 1.2 bytes per email at the 1% false-positive rate; once the table outgrows the sizing
+ *   the filter is rebuilt at twice the size. Users are never deleted, so stale bits can't pile up.
+ */
+@Component
+public class EmailExistenceFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailExistenceFilter.class);
+
+    private static final char EMAIL = 'e';
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final UserRepository repo;
+    // read-write, so the reads go to the primary (see ReadReplicaConfig)
+    private final TransactionTemplate primaryTx;
+
+    private final boolean enabled;
+    private final int expectedEmails;
+    private final Duration syncLookback;
+
+    // null until the first build: everything might exist
+    private volatile BloomFilter filter;
+    // set while a rebuild streams the table, so emails added meanwhile land in both filters
+    private volatile BloomFilter building;
+
+    private final AtomicLong entries = new AtomicLong();
+    private volatile Instant lastSync;
+
+    public EmailExistenceFilter(UserRepository repo,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${auth.email-filter.enabled:true}") boolean enabled,
+                                @Value("${auth.email-filter.expected-emails:1000000}") int expectedEmails,
+                                @Value("${auth.email-filter.sync.lookback:PT1M}") Duration syncLookback) {
+        this.repo = repo;
+        this.primaryTx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.expectedEmails = expectedEmails;
+        this.syncLookback = syncLookback;
+
+        Gauge.builder("auth.email-filter.entries", entries, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    /** @param email a normalized email */
+    public boolean mightExist(String email) {
+        BloomFilter f = filter;
+        return f == null || f.mightContain(EMAIL, email);
+    }
+
+    /** Records a newly committed user. */
+    public void add(String email) {
+        // Called after the commit, and reads building before filter: a rebuild still streaming gets
+        // the email here, one that hasn't started will see the row, one that finished is the filter
+        BloomFilter b = building;
+        if (b != null) b.put(EMAIL, email);
+
+        BloomFilter f = filter;
+        if (f != null && !f.mightContain(EMAIL, email)) {
+            f.put(EMAIL, email);
+            entries.incrementAndGet();
+        }
+    }
+
+    public boolean isReady() {
+        return filter != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (enabled) rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${auth.email-filter.sync-interval:PT5S}")
+    public void sync() {
+        BloomFilter f = filter;
+        if (f == null) return;
+
+        if (entries.get() > f.capacity()) {
+            rebuild();
+            return;
+        }
+
+        lastSync = primaryTx.execute(status -> {
+            Instant now = repo.databaseNow();
+            for (String email : repo.findEmailsCreatedSince(lastSync.minus(syncLookback))) add(email);
+            return now;
+        });
+    }
+
+    synchronized void rebuild() {
+        long start = System.nanoTime();
+        Instant since = primaryTx.execute(status -> repo.databaseNow());
+        // sizing only, a replica's count will do
+        long rows = repo.count();
+
+        BloomFilter next = new BloomFilter((int) Math.min(Integer.MAX_VALUE / 2, Math.max(expectedEmails, rows * 2)),
+                FALSE_POSITIVE_RATE);
+        AtomicLong streamed = new AtomicLong();
+
+        building = next;
+        try {
+            primaryTx.executeWithoutResult(status -> {
+                try (Stream<String> emails = repo.streamAllEmails()) {
+                    emails.forEach(email -> {
+                        next.put(EMAIL, email);
+                        streamed.incrementAndGet();
+                    });
+                }
+            });
+            lastSync = since;
+            entries.set(streamed.get());
+            filter = next;
+        } finally {
+            building = null;
+        }
+        log.info("Email filter built: {} emails, capacity {} in {} ms",
+                streamed.get(), next.capacity(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+}
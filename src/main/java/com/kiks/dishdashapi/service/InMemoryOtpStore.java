@@ -0,0 +1,266 @@
+package com.kiks.dishdashapi.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Single-node {@link OtpStore}.
+ * - Keys are spread over lock-striped segments; each segment owns plain maps and its own timing wheel.
+ * - OTP, attempts and cooldown for a key live in one mutable entry of primitives, updated in place
+ *   under the segment lock; issuing, verifying and rejecting an OTP for a known key allocate nothing.
+ * - Expiry is driven by the timing wheels, so a purge only touches entries that are actually due.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStore implements OtpStore {
+
+    private static final long TICK_MILLIS = 1_000;
+
+    private final Segment[] segments;
+    private final int mask;
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    public InMemoryOtpStore(@Value("${otp.store.memory.stripes:16}") int stripes) {
+        // next power of two, at least 1
+        int n = (stripes <= 1) ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        long now = System.currentTimeMillis();
+
+        this.segments = new Segment[n];
+        for (int i = 0; i < n; i++) segments[i] = new Segment(now);
+        this.mask = n - 1;
+    }
+
+    /* ================= OTP ================= */
+
+    @Override
+    public boolean issueOtp(String key, int otp, long expiresAt, int maxAttempts, long cooldownUntil, long now) {
+        Segment s = segmentFor(key);
+        s.lock.lock();
+        try {
+            OtpEntry e = s.otps.get(key);
+            if (e != null && now < e.cooldownUntil) return false;
+
+            if (e == null) {
+                e = new OtpEntry(key);
+                s.otps.put(key, e);
+                size.incrementAndGet();
+                e.otp = otp;
+                e.otpExpiresAt = expiresAt;
+                e.attemptsLeft = maxAttempts;
+                e.cooldownUntil = cooldownUntil;
+                s.wheel.schedule(e, e.deadline());
+            } else {
+                // already scheduled; a later deadline is picked up when the wheel fires
+                e.otp = otp;
+                e.otpExpiresAt = expiresAt;
+                e.attemptsLeft = maxAttempts;
+                e.cooldownUntil = cooldownUntil;
+            }
+            return true;
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    @Override
+    public Instant cooldownUntil(String key) {
+        Segment s = segmentFor(key);
+        s.lock.lock();
+        try {
+            OtpEntry e = s.otps.get(key);
+            return (e == null) ? Instant.EPOCH : Instant.ofEpochMilli(e.cooldownUntil);
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean consumeOtp(String key, int providedOtp, long now) {
+        Segment s = segmentFor(key);
+        s.lock.lock();
+        try {
+            OtpEntry e = s.otps.get(key);
+            if (e == null || e.otp == OtpService.NO_CODE) return false;
+
+            // Expired -> drop the OTP (the cooldown may still be running)
+            if (now > e.otpExpiresAt) {
+                e.otp = OtpService.NO_CODE;
+                return false;
+            }
+
+            // Wrong OTP -> use up an attempt, drop the OTP on the last one
+            if (!OtpStore.codesMatch(e.otp, providedOtp)) {
+                if (--e.attemptsLeft <= 0) e.otp = OtpService.NO_CODE;
+                return false;
+            }
+
+            // Correct OTP -> one-time use
+            e.otp = OtpService.NO_CODE;
+            return true;
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    @Override
+    public void withdrawOtp(String key, int otp) {
+        Segment s = segmentFor(key);
+        s.lock.lock();
+        try {
+            OtpEntry e = s.otps.get(key);
+            // its wheel record goes stale and is skipped when it fires
+            if (e != null && e.otp == otp) remove(s, e);
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    /* ================= RESET TOKEN ================= */
+
+    @Override
+    public void storeResetToken(String resetToken, String key, Instant expiresAt) {
+        Segment s = segmentFor(resetToken);
+        s.lock.lock();
+        try {
+            ResetTokenEntry e = new ResetTokenEntry(resetToken, key, expiresAt.toEpochMilli());
+            if (s.resetTokens.put(resetToken, e) == null) size.incrementAndGet();
+            s.wheel.schedule(e, e.deadline());
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean consumeResetToken(String resetToken, String key, Instant now) {
+        Segment s = segmentFor(resetToken);
+        s.lock.lock();
+        try {
+            ResetTokenEntry e = s.resetTokens.get(resetToken);
+            if (e == null) return false;
+
+            if (now.toEpochMilli() > e.expiresAt) {
+                remove(s, e);
+                return false;
+            }
+
+            if (!e.key.equals(key)) return false;
+
+            remove(s, e); // one-time use
+            return true;
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    /* ================= Expiry ================= */
+
+    @Override
+    public void purgeExpired(Instant now) {
+        long nowMillis = now.toEpochMilli();
+        for (Segment s : segments) {
+            s.lock.lock();
+            try {
+                s.wheel.advance(nowMillis, e -> {
+                    // stale wheel record: the entry was removed or replaced meanwhile
+                    if (!s.holds(e)) return;
+
+                    long deadline = e.deadline();
+                    if (deadline < nowMillis) {
+                        remove(s, e);
+                    } else {
+                        s.wheel.schedule(e, deadline);
+                    }
+                });
+            } finally {
+                s.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /* ================= Internals ================= */
+
+    private void remove(Segment s, Expiring e) {
+        boolean removed = (e instanceof OtpEntry)
+                ? s.otps.remove(e.id, e)
+                : s.resetTokens.remove(e.id, e);
+        if (removed) size.decrementAndGet();
+    }
+
+    private Segment segmentFor(String key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & mask];
+    }
+
+    private static final class Segment {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<String, OtpEntry> otps = new HashMap<>();
+        final Map<String, ResetTokenEntry> resetTokens = new HashMap<>();
+        final TimingWheel<Expiring> wheel;
+
+        Segment(long nowMillis) {
+            this.wheel = new TimingWheel<>(TICK_MILLIS, nowMillis);
+        }
+
+        boolean holds(Expiring e) {
+            return (e instanceof OtpEntry)
+                    ? otps.get(e.id) == e
+                    : resetTokens.get(e.id) == e;
+        }
+    }
+
+    private abstract static sealed class Expiring permits OtpEntry, ResetTokenEntry {
+        final String id;
+
+        Expiring(String id) {
+            this.id = id;
+        }
+
+        abstract long deadline();
+    }
+
+    // mutated in place under the segment lock
+    private static final class OtpEntry extends Expiring {
+        int otp = OtpService.NO_CODE;
+        long otpExpiresAt;
+        int attemptsLeft;
+        long cooldownUntil;
+
+        OtpEntry(String key) {
+            super(key);
+        }
+
+        @Override
+        long deadline() {
+            return (otp == OtpService.NO_CODE) ? cooldownUntil : Math.max(otpExpiresAt, cooldownUntil);
+        }
+    }
+
+    private static final class ResetTokenEntry extends Expiring {
+        final String key;
+        final long expiresAt;
+
+        ResetTokenEntry(String token, String key, long expiresAt) {
+            super(token);
+            this.key = key;
+            this.expiresAt = expiresAt;
+        }
+
+        @Override
+        long deadline() {
+            return expiresAt;
+        }
+    }
+}
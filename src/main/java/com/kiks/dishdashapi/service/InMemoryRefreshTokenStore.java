@@ -0,0 +1,125 @@
+package com.kiks.dishdashapi.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-node {@link RefreshTokenStore}. The used flag is flipped with an atomic replace,
+ * so of two concurrent rotations of the same token exactly one wins.
+ * Tokens are indexed by family and families by user, so revoking touches only their own entries.
+ */
+@Component
+@ConditionalOnProperty(name = "refresh.store", havingValue = "memory")
+public class InMemoryRefreshTokenStore implements RefreshTokenStore {
+
+    private final Map<String, Entry> tokens = new ConcurrentHashMap<>();
+
+    // familyId -> token hashes, email -> family ids; both updated with compute() so an empty set is never left behind
+    private final Map<String, Set<String>> tokensByFamily = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> familiesByUser = new ConcurrentHashMap<>();
+
+    // familyId -> session expiry, kept so late reuse of a revoked family is still refused
+    private final Map<String, Instant> revokedFamilies = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(RefreshToken token) {
+        tokens.put(token.tokenHash(), new Entry(token, null, null));
+        add(tokensByFamily, token.familyId(), token.tokenHash());
+        add(familiesByUser, token.email(), token.familyId());
+    }
+
+    @Override
+    public Rotation rotate(String tokenHash, String nextHash, Instant nextExpiresAt, Instant now, Duration reuseGrace) {
+        Entry e = tokens.get(tokenHash);
+        if (e == null || revokedFamilies.containsKey(e.token().familyId())) return Rotation.INVALID;
+        if (now.isAfter(e.token().expiresAt())) return new Rotation(Outcome.INVALID, e.token());
+
+        if (e.usedAt() == null && tokens.replace(tokenHash, e, new Entry(e.token(), now, nextHash))) {
+            save(e.token().next(nextHash, nextExpiresAt));
+            return new Rotation(Outcome.ROTATED, e.token());
+        }
+
+        // lost to, or came after, another rotation: the same refresh retried, or a copy
+        Entry used = tokens.get(tokenHash);
+        if (used != null && used.isRetry(nextHash, now, reuseGrace)) return new Rotation(Outcome.RETRIED, e.token());
+
+        revokeFamily(e.token().familyId());
+        return new Rotation(Outcome.REUSED, e.token());
+    }
+
+    @Override
+    public void revokeFamily(String familyId) {
+        Instant sessionEnd = Instant.EPOCH;
+        String email = null;
+
+        Set<String> hashes = tokensByFamily.remove(familyId);
+        if (hashes != null) {
+            for (String hash : hashes) {
+                Entry e = tokens.remove(hash);
+                if (e == null) continue;
+                sessionEnd = e.token().sessionExpiresAt();
+                email = e.token().email();
+            }
+        }
+        revokedFamilies.put(familyId, sessionEnd);
+        if (email != null) remove(familiesByUser, email, familyId);
+    }
+
+    @Override
+    public void revokeFamilyOf(String tokenHash) {
+        Entry e = tokens.get(tokenHash);
+        if (e != null) revokeFamily(e.token().familyId());
+    }
+
+    @Override
+    public void revokeUser(String email) {
+        Set<String> families = familiesByUser.remove(email);
+        if (families != null) families.forEach(this::revokeFamily);
+    }
+
+    @Override
+    public void purgeExpired(Instant now) {
+        for (Entry e : tokens.values()) {
+            RefreshToken t = e.token();
+            if (!now.isAfter(t.expiresAt()) || !tokens.remove(t.tokenHash(), e)) continue;
+
+            remove(tokensByFamily, t.familyId(), t.tokenHash());
+            if (!tokensByFamily.containsKey(t.familyId())) remove(familiesByUser, t.email(), t.familyId());
+        }
+        revokedFamilies.values().removeIf(now::isAfter);
+    }
+
+    @Override
+    public int size() {
+        return tokens.size();
+    }
+
+    private static void add(Map<String, Set<String>> index, String key, String value) {
+        index.compute(key, (k, values) -> {
+            Set<String> set = (values == null) ? ConcurrentHashMap.newKeySet() : values;
+            set.add(value);
+            return set;
+        });
+    }
+
+    private static void remove(Map<String, Set<String>> index, String key, String value) {
+        index.computeIfPresent(key, (k, values) -> {
+            values.remove(value);
+            return values.isEmpty() ? null : values;
+        });
+    }
+
+    // usedAt and replacedBy are null until the token is rotated
+    private record Entry(RefreshToken token, Instant usedAt, String replacedBy) {
+
+        boolean isRetry(String nextHash, Instant now, Duration reuseGrace) {
+            return usedAt != null && nextHash.equals(replacedBy) && now.isBefore(usedAt.plus(reuseGrace));
+        }
+    }
+}
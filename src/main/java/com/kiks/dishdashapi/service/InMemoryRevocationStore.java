@@ -0,0 +1,30 @@
+package com.kiks.dishdashapi.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Single-node {@link RevocationStore}: the in-memory index is the only copy, so there is
+ * nothing to persist or sync. Revocations are forgotten on restart, which re-admits
+ * revoked tokens for at most the rest of their (30 minute) lifetime.
+ */
+@Component
+@ConditionalOnProperty(name = "revocation.store", havingValue = "memory")
+public class InMemoryRevocationStore implements RevocationStore {
+
+    @Override
+    public void append(Revocation revocation) {
+    }
+
+    @Override
+    public List<Revocation> loadSince(Instant since, Instant now) {
+        return List.of();
+    }
+
+    @Override
+    public void purgeExpired(Instant now) {
+    }
+}
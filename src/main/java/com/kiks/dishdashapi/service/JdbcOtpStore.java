@@ -0,0 +1,237 @@
+package com.kiks.dishdashapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link OtpStore} shared by all replicas through the application's PostgreSQL datasource.
+ * - Every state change is a single conditional UPDATE/INSERT/DELETE, so replicas never race
+ *   on read-modify-write; attempt counts use compare-and-set on a version column.
+ * - Running cooldowns are remembered locally, so repeated requests during a cooldown
+ *   are turned away without a query.
+ * - Expired rows are deleted in batches, at most once per purge interval per node.
+ * Times are stored as epoch millis.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "jdbc")
+public class JdbcOtpStore implements OtpStore {
+
+    private static final int MAX_CAS_RETRIES = 5;
+
+    private final JdbcTemplate jdbc;
+
+    private final boolean initializeSchema;
+    private final int purgeBatchSize;
+    private final long purgeIntervalMillis;
+
+    private final AtomicLong lastPurge = new AtomicLong();
+
+    // key -> cooldown end (epoch millis); cooldowns only move forward, except when an undelivered
+    // OTP is withdrawn on this node, which drops the entry here too
+    private final Cache<String, Long> localCooldowns;
+
+    public JdbcOtpStore(JdbcTemplate jdbc,
+                        @Value("${otp.store.jdbc.initialize-schema:false}") boolean initializeSchema,
+                        @Value("${otp.store.jdbc.local-cache-size:10000}") long localCacheSize,
+                        @Value("${otp.store.jdbc.purge-batch-size:1000}") int purgeBatchSize,
+                        @Value("${otp.store.jdbc.purge-interval:PT30S}") Duration purgeInterval) {
+        this.jdbc = jdbc;
+        this.initializeSchema = initializeSchema;
+        this.purgeBatchSize = purgeBatchSize;
+        this.purgeIntervalMillis = purgeInterval.toMillis();
+        this.localCooldowns = Caffeine.newBuilder()
+                .maximumSize(localCacheSize)
+                .expireAfterWrite(Duration.ofMinutes(5))
+                .build();
+    }
+
+    @PostConstruct
+    public void initSchema() {
+        if (!initializeSchema) return;
+
+        jdbc.execute("""
+                CREATE TABLE IF NOT EXISTS otp_entries (
+                    otp_key        VARCHAR(320) PRIMARY KEY,
+                    otp            VARCHAR(16),
+                    otp_expires_at BIGINT NOT NULL,
+                    attempts_left  INT    NOT NULL,
+                    cooldown_until BIGINT NOT NULL,
+                    expires_at     BIGINT NOT NULL,
+                    version        BIGINT NOT NULL
+                )""");
+        jdbc.execute("CREATE INDEX IF NOT EXISTS idx_otp_entries_expires_at ON otp_entries (expires_at)");
+        jdbc.execute("""
+                CREATE TABLE IF NOT EXISTS otp_reset_tokens (
+                    token      VARCHAR(64) PRIMARY KEY,
+                    otp_key    VARCHAR(320) NOT NULL,
+                    expires_at BIGINT NOT NULL
+                )""");
+        jdbc.execute("CREATE INDEX IF NOT EXISTS idx_otp_reset_tokens_expires_at ON otp_reset_tokens (expires_at)");
+    }
+
+    /* ================= OTP ================= */
+
+    @Override
+    public boolean issueOtp(String key, int otp, long expiresAt, int maxAttempts, long cooldownUntil, long nowMillis) {
+        Long knownCooldown = localCooldowns.getIfPresent(key);
+        if (knownCooldown != null && nowMillis < knownCooldown) return false;
+
+        // the column stays VARCHAR; codes from before the switch to ints ("012345") parse the same
+        String code = Integer.toString(otp);
+        long deadline = Math.max(expiresAt, cooldownUntil);
+
+        // Replace the row only if its cooldown is over
+        int updated = jdbc.update("""
+                UPDATE otp_entries
+                   SET otp = ?, otp_expires_at = ?, attempts_left = ?, cooldown_until = ?,
+                       expires_at = ?, version = version + 1
+                 WHERE otp_key = ? AND cooldown_until <= ?""",
+                code, expiresAt, maxAttempts, cooldownUntil, deadline, key, nowMillis);
+
+        if (updated == 0) {
+            try {
+                jdbc.update("""
+                        INSERT INTO otp_entries (otp_key, otp, otp_expires_at, attempts_left, cooldown_until, expires_at, version)
+                        VALUES (?, ?, ?, ?, ?, ?, 0)""",
+                        key, code, expiresAt, maxAttempts, cooldownUntil, deadline);
+            } catch (DuplicateKeyException e) {
+                // row exists and is still cooling down (or another replica just issued one)
+                rememberCooldown(key);
+                return false;
+            }
+        }
+
+        localCooldowns.put(key, cooldownUntil);
+        return true;
+    }
+
+    @Override
+    public Instant cooldownUntil(String key) {
+        Long known = localCooldowns.getIfPresent(key);
+        if (known != null) return Instant.ofEpochMilli(known);
+
+        List<Long> rows = jdbc.queryForList(
+                "SELECT cooldown_until FROM otp_entries WHERE otp_key = ?", Long.class, key);
+        if (rows.isEmpty()) return Instant.EPOCH;
+
+        localCooldowns.put(key, rows.get(0));
+        return Instant.ofEpochMilli(rows.get(0));
+    }
+
+    @Override
+    public boolean consumeOtp(String key, int providedOtp, long nowMillis) {
+
+        for (int i = 0; i < MAX_CAS_RETRIES; i++) {
+            List<OtpRow> rows = jdbc.query(
+                    "SELECT otp, otp_expires_at, attempts_left, version FROM otp_entries WHERE otp_key = ?",
+                    (rs, n) -> new OtpRow(parseCode(rs.getString(1)), rs.getLong(2), rs.getInt(3), rs.getLong(4)),
+                    key);
+            if (rows.isEmpty()) return false;
+
+            OtpRow row = rows.get(0);
+            if (row.otp() == OtpService.NO_CODE) return false;
+
+            boolean matched;
+            int updated;
+            if (nowMillis > row.otpExpiresAt()) {
+                // Expired -> drop the OTP
+                matched = false;
+                updated = clearOtp(key, row.version());
+            } else if (!OtpStore.codesMatch(row.otp(), providedOtp)) {
+                // Wrong OTP -> use up an attempt, drop the OTP on the last one
+                matched = false;
+                updated = (row.attemptsLeft() <= 1)
+                        ? clearOtp(key, row.version())
+                        : jdbc.update("""
+                                UPDATE otp_entries SET attempts_left = ?, version = version + 1
+                                 WHERE otp_key = ? AND version = ?""",
+                                row.attemptsLeft() - 1, key, row.version());
+            } else {
+                // Correct OTP -> one-time use; only the replica that wins the CAS succeeds
+                matched = true;
+                updated = clearOtp(key, row.version());
+            }
+
+            if (updated == 1) return matched;
+            // lost the race against another attempt; re-read and count this one too
+        }
+        return false;
+    }
+
+    @Override
+    public void withdrawOtp(String key, int otp) {
+        jdbc.update("DELETE FROM otp_entries WHERE otp_key = ? AND otp = ?", key, Integer.toString(otp));
+        localCooldowns.invalidate(key);
+    }
+
+    private int clearOtp(String key, long version) {
+        return jdbc.update("UPDATE otp_entries SET otp = NULL, version = version + 1 WHERE otp_key = ? AND version = ?",
+                key, version);
+    }
+
+    private void rememberCooldown(String key) {
+        List<Long> rows = jdbc.queryForList(
+                "SELECT cooldown_until FROM otp_entries WHERE otp_key = ?", Long.class, key);
+        if (!rows.isEmpty()) localCooldowns.put(key, rows.get(0));
+    }
+
+    /* ================= RESET TOKEN ================= */
+
+    @Override
+    public void storeResetToken(String resetToken, String key, Instant expiresAt) {
+        jdbc.update("INSERT INTO otp_reset_tokens (token, otp_key, expires_at) VALUES (?, ?, ?)",
+                resetToken, key, expiresAt.toEpochMilli());
+    }
+
+    @Override
+    public boolean consumeResetToken(String resetToken, String key, Instant now) {
+        // one statement: exists, not expired, right key, and removed -> one-time use across replicas
+        return jdbc.update("DELETE FROM otp_reset_tokens WHERE token = ? AND otp_key = ? AND expires_at >= ?",
+                resetToken, key, now.toEpochMilli()) == 1;
+    }
+
+    /* ================= Expiry ================= */
+
+    @Override
+    public void purgeExpired(Instant now) {
+        long nowMillis = now.toEpochMilli();
+        long last = lastPurge.get();
+        if (nowMillis - last < purgeIntervalMillis || !lastPurge.compareAndSet(last, nowMillis)) return;
+
+        deleteInBatches("DELETE FROM otp_entries WHERE otp_key IN "
+                + "(SELECT otp_key FROM otp_entries WHERE expires_at < ? LIMIT ?)", nowMillis);
+        deleteInBatches("DELETE FROM otp_reset_tokens WHERE token IN "
+                + "(SELECT token FROM otp_reset_tokens WHERE expires_at < ? LIMIT ?)", nowMillis);
+    }
+
+    private void deleteInBatches(String sql, long nowMillis) {
+        int deleted;
+        do {
+            deleted = jdbc.update(sql, nowMillis, purgeBatchSize);
+        } while (deleted >= purgeBatchSize);
+    }
+
+    @Override
+    public int size() {
+        Integer count = jdbc.queryForObject(
+                "SELECT (SELECT COUNT(*) FROM otp_entries) + (SELECT COUNT(*) FROM otp_reset_tokens)", Integer.class);
+        return (count == null) ? 0 : count;
+    }
+
+    private static int parseCode(String otp) {
+        return (otp == null) ? OtpService.NO_CODE : Integer.parseInt(otp);
+    }
+
+    private record OtpRow(int otp, long otpExpiresAt, int attemptsLeft, long version) {}
+}
@@ -0,0 +1,145 @@
+package com.kiks.dishdashapi.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * {@link RefreshTokenStore} shared by all replicas through the application's PostgreSQL datasource.
+ * A rotation is won by a single conditional UPDATE of the used flag, so two replicas
+ * can't both rotate the same token; the flag and the successor are written in one transaction.
+ * Times are stored as epoch millis.
+ */
+@Component
+@ConditionalOnProperty(name = "refresh.store", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcRefreshTokenStore implements RefreshTokenStore {
+
+    private static final RowMapper<Row> ROW = (rs, n) -> new Row(
+            new RefreshToken(rs.getString("token_hash"), rs.getString("family_id"), rs.getString("email"),
+                    rs.getInt("credential_version"), Instant.ofEpochMilli(rs.getLong("expires_at")),
+                    Instant.ofEpochMilli(rs.getLong("session_expires_at"))),
+            rs.getBoolean("used"), rs.getBoolean("revoked"));
+
+    private static final RowMapper<Use> USE = (rs, n) -> new Use(
+            rs.getLong("used_at"), rs.getString("replaced_by"), rs.getBoolean("revoked"));
+
+    private final JdbcTemplate jdbc;
+    private final boolean initializeSchema;
+
+    public JdbcRefreshTokenStore(JdbcTemplate jdbc,
+                                 @Value("${refresh.store.jdbc.initialize-schema:false}") boolean initializeSchema) {
+        this.jdbc = jdbc;
+        this.initializeSchema = initializeSchema;
+    }
+
+    @PostConstruct
+    public void initSchema() {
+        if (!initializeSchema) return;
+
+        jdbc.execute("""
+                CREATE TABLE IF NOT EXISTS refresh_tokens (
+                    token_hash         VARCHAR(64)  PRIMARY KEY,
+                    family_id          VARCHAR(36)  NOT NULL,
+                    email              VARCHAR(320) NOT NULL,
+                    credential_version INT          NOT NULL,
+                    expires_at         BIGINT       NOT NULL,
+                    session_expires_at BIGINT       NOT NULL,
+                    used               BOOLEAN      NOT NULL,
+                    revoked            BOOLEAN      NOT NULL,
+                    used_at            BIGINT,
+                    replaced_by        VARCHAR(64)
+                )""");
+        jdbc.execute("CREATE INDEX IF NOT EXISTS idx_refresh_tokens_family ON refresh_tokens (family_id)");
+        jdbc.execute("CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expires_at ON refresh_tokens (expires_at)");
+        jdbc.execute("CREATE INDEX IF NOT EXISTS idx_refresh_tokens_email ON refresh_tokens (email)");
+    }
+
+    @Override
+    public void save(RefreshToken token) {
+        jdbc.update("""
+                INSERT INTO refresh_tokens (token_hash, family_id, email, credential_version,
+                                            expires_at, session_expires_at, used, revoked)
+                VALUES (?, ?, ?, ?, ?, ?, FALSE, FALSE)""",
+                token.tokenHash(), token.familyId(), token.email(), token.credentialVersion(),
+                token.expiresAt().toEpochMilli(), token.sessionExpiresAt().toEpochMilli());
+    }
+
+    @Override
+    @Transactional
+    public Rotation rotate(String tokenHash, String nextHash, Instant nextExpiresAt, Instant now, Duration reuseGrace) {
+        List<Row> rows = jdbc.query("SELECT * FROM refresh_tokens WHERE token_hash = ?", ROW, tokenHash);
+        if (rows.isEmpty()) return Rotation.INVALID;
+
+        Row row = rows.get(0);
+        if (row.revoked() || now.isAfter(row.token().expiresAt())) return new Rotation(Outcome.INVALID, row.token());
+
+        // the family check also refuses a successor that was saved while its family was being revoked
+        int won = jdbc.update("""
+                UPDATE refresh_tokens SET used = TRUE, used_at = ?, replaced_by = ?
+                 WHERE token_hash = ? AND used = FALSE AND revoked = FALSE
+                   AND NOT EXISTS (SELECT 1 FROM refresh_tokens r WHERE r.family_id = ? AND r.revoked)""",
+                now.toEpochMilli(), nextHash, tokenHash, row.token().familyId());
+        if (won == 0) {
+            // used before (or just now by another replica): a retry of that refresh, or someone holds a copy.
+            // Read after our UPDATE waited for the winner, so its commit is visible
+            List<Use> uses = jdbc.query("SELECT used_at, replaced_by, revoked FROM refresh_tokens WHERE token_hash = ?",
+                    USE, tokenHash);
+            if (!uses.isEmpty() && uses.get(0).isRetry(nextHash, now, reuseGrace)) {
+                return new Rotation(Outcome.RETRIED, row.token());
+            }
+            revokeFamily(row.token().familyId());
+            return new Rotation(Outcome.REUSED, row.token());
+        }
+
+        // same transaction as the UPDATE: a token is never marked used without its successor
+        save(row.token().next(nextHash, nextExpiresAt));
+        return new Rotation(Outcome.ROTATED, row.token());
+    }
+
+    @Override
+    public void revokeFamily(String familyId) {
+        jdbc.update("UPDATE refresh_tokens SET revoked = TRUE WHERE family_id = ?", familyId);
+    }
+
+    @Override
+    public void revokeFamilyOf(String tokenHash) {
+        jdbc.update("""
+                UPDATE refresh_tokens SET revoked = TRUE
+                 WHERE family_id IN (SELECT family_id FROM refresh_tokens WHERE token_hash = ?)""", tokenHash);
+    }
+
+    @Override
+    public void revokeUser(String email) {
+        jdbc.update("UPDATE refresh_tokens SET revoked = TRUE WHERE email = ?", email);
+    }
+
+    @Override
+    public void purgeExpired(Instant now) {
+        jdbc.update("DELETE FROM refresh_tokens WHERE expires_at < ?", now.toEpochMilli());
+    }
+
+    @Override
+    public int size() {
+        Integer count = jdbc.queryForObject("SELECT COUNT(*) FROM refresh_tokens", Integer.class);
+        return (count == null) ? 0 : count;
+    }
+
+    private record Row(RefreshToken token, boolean used, boolean revoked) {}
+
+    // used_at is 0 (SQL NULL) and replaced_by null for tokens used before V9
+    private record Use(long usedAt, String replacedBy, boolean revoked) {
+
+        boolean isRetry(String nextHash, Instant now, Duration reuseGrace) {
+            return !revoked && nextHash.equals(replacedBy)
+                    && now.toEpochMilli() < usedAt + reuseGrace.toMillis();
+        }
+    }
+}
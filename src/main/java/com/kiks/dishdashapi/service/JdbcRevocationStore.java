@@ -0,0 +1,81 @@
+package com.kiks.dishdashapi.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link RevocationStore} shared by all replicas through the application's PostgreSQL datasource.
+ * The table is append-only (a repeated revocation is just another row), so there are no
+ * read-modify-write races between replicas; each one polls for rows newer than its last sync.
+ * Expired rows are deleted at most once per purge interval per node. Times are stored as epoch millis.
+ */
+@Component
+@ConditionalOnProperty(name = "revocation.store", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcRevocationStore implements RevocationStore {
+
+    private static final RowMapper<Revocation> ROW = (rs, n) -> new Revocation(
+            Kind.valueOf(rs.getString("kind")), rs.getString("subject"),
+            Instant.ofEpochMilli(rs.getLong("revoked_at")), Instant.ofEpochMilli(rs.getLong("expires_at")));
+
+    private final JdbcTemplate jdbc;
+    private final boolean initializeSchema;
+    private final long purgeIntervalMillis;
+
+    private final AtomicLong lastPurge = new AtomicLong();
+
+    public JdbcRevocationStore(JdbcTemplate jdbc,
+                               @Value("${revocation.store.jdbc.initialize-schema:false}") boolean initializeSchema,
+                               @Value("${revocation.store.jdbc.purge-interval:PT1M}") Duration purgeInterval) {
+        this.jdbc = jdbc;
+        this.initializeSchema = initializeSchema;
+        this.purgeIntervalMillis = purgeInterval.toMillis();
+    }
+
+    @PostConstruct
+    public void initSchema() {
+        if (!initializeSchema) return;
+
+        jdbc.execute("""
+                CREATE TABLE IF NOT EXISTS token_revocations (
+                    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    kind       VARCHAR(8)   NOT NULL,
+                    subject    VARCHAR(320) NOT NULL,
+                    revoked_at BIGINT       NOT NULL,
+                    expires_at BIGINT       NOT NULL
+                )""");
+        jdbc.execute("CREATE INDEX IF NOT EXISTS idx_token_revocations_revoked_at ON token_revocations (revoked_at)");
+        jdbc.execute("CREATE INDEX IF NOT EXISTS idx_token_revocations_expires_at ON token_revocations (expires_at)");
+    }
+
+    @Override
+    public void append(Revocation revocation) {
+        jdbc.update("INSERT INTO token_revocations (kind, subject, revoked_at, expires_at) VALUES (?, ?, ?, ?)",
+                revocation.kind().name(), revocation.subject(),
+                revocation.revokedAt().toEpochMilli(), revocation.expiresAt().toEpochMilli());
+    }
+
+    @Override
+    public List<Revocation> loadSince(Instant since, Instant now) {
+        return jdbc.query("SELECT kind, subject, revoked_at, expires_at FROM token_revocations "
+                        + "WHERE revoked_at >= ? AND expires_at > ?",
+                ROW, since.toEpochMilli(), now.toEpochMilli());
+    }
+
+    @Override
+    public void purgeExpired(Instant now) {
+        long last = lastPurge.get();
+        long nowMillis = now.toEpochMilli();
+        if (nowMillis - last < purgeIntervalMillis || !lastPurge.compareAndSet(last, nowMillis)) return;
+
+        jdbc.update("DELETE FROM token_revocations WHERE expires_at <= ?", nowMillis);
+    }
+}
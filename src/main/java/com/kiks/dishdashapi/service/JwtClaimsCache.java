@@ -0,0 +1,67 @@
+package com.kiks.dishdashapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Bounded cache of already verified tokens, keyed by the SHA-256 digest of the raw token.
+ * Each entry expires with its token, so a hit never outlives the JWT; when full, Caffeine
+ * evicts by frequency, so hot tokens stay in even under a stream of one-off ones.
+ */
+@Component
+public class JwtClaimsCache {
+
+    // null when disabled (max-entries <= 0)
+    private final Cache<ByteBuffer, JwtService.VerifiedClaims> entries;
+
+    public JwtClaimsCache(@Value("${jwt.claims-cache.max-entries:10000}") int maxEntries) {
+        this.entries = (maxEntries <= 0) ? null : Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(Expiry.creating((ByteBuffer key, JwtService.VerifiedClaims claims) ->
+                        Duration.between(Instant.now(), claims.expiresAt())))
+                .build();
+    }
+
+    public JwtService.VerifiedClaims get(String token) {
+        if (entries == null) return null;
+
+        JwtService.VerifiedClaims claims = entries.getIfPresent(digest(token));
+        // expiry is checked again here: Caffeine's clock and the token's may differ by a tick
+        return (claims == null || claims.isExpired(Instant.now())) ? null : claims;
+    }
+
+    public void put(String token, JwtService.VerifiedClaims claims) {
+        if (entries == null || claims.isExpired(Instant.now())) return;
+        entries.put(digest(token), claims);
+    }
+
+    public void invalidateAll() {
+        if (entries != null) entries.invalidateAll();
+    }
+
+    public long size() {
+        if (entries == null) return 0;
+        entries.cleanUp();
+        return entries.estimatedSize();
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(md.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            // every JRE ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
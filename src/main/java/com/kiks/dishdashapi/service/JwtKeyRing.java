@@ -0,0 +1,76 @@
+package com.kiks.dishdashapi.service;
+
+import com.kiks.dishdashapi.config.JwtKeyProperties;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Signing and verification keys, decoded once at startup.
+ * Verification picks the key by {@code kid} with a single map lookup.
+ * <p>
+ * Rotation, across all nodes:
+ * 1. add the new key next to the active one and roll out (it only verifies for now);
+ * 2. make it active and set {@code retired-at} on the old one;
+ * 3. once the grace window has passed, remove the old key.
+ */
+@Component
+public class JwtKeyRing {
+
+    private final String activeKid;
+    private final SecretKey activeKey;
+    private final Map<String, Verifier> verifiers;
+
+    public JwtKeyRing(JwtKeyProperties properties) {
+        Map<String, Verifier> byKid = new HashMap<>();
+        properties.keys().forEach((kid, spec) -> {
+            if (spec.secret() == null || spec.secret().isBlank()) {
+                throw new IllegalStateException("jwt.signing.keys." + kid + ".secret is empty");
+            }
+            // hmacShaKeyFor rejects keys shorter than 256 bits
+            SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(spec.secret().strip()));
+            Instant acceptUntil = (spec.retiredAt() == null) ? null : spec.retiredAt().plus(properties.grace());
+            byKid.put(kid, new Verifier(key, acceptUntil));
+        });
+
+        Verifier active = byKid.get(properties.activeKey());
+        if (active == null) {
+            throw new IllegalStateException("jwt.signing.active-key '" + properties.activeKey() + "' is not in jwt.signing.keys");
+        }
+        if (properties.keys().get(properties.activeKey()).retiredAt() != null) {
+            throw new IllegalStateException("jwt.signing.active-key '" + properties.activeKey() + "' is retired");
+        }
+
+        this.activeKid = properties.activeKey();
+        this.activeKey = active.key();
+        this.verifiers = Map.copyOf(byKid);
+    }
+
+    public String activeKid() {
+        return activeKid;
+    }
+
+    public SecretKey activeKey() {
+        return activeKey;
+    }
+
+    /**
+     * @param kid the token's key id; tokens without one predate kid headers and are checked against the active key
+     * @return the key, or null if the kid is unknown or its grace window is over
+     */
+    public SecretKey verificationKey(String kid, Instant now) {
+        if (kid == null) return activeKey;
+
+        Verifier v = verifiers.get(kid);
+        if (v == null) return null;
+        if (v.acceptUntil() != null && now.isAfter(v.acceptUntil())) return null;
+        return v.key();
+    }
+
+    private record Verifier(SecretKey key, Instant acceptUntil) {}
+}
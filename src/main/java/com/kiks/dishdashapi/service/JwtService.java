@@ -1,78 +1,207 @@
 package com.kiks.dishdashapi.service;
 
+import com.kiks.dishdashapi.model.UserPrincipal;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.io.Serializer;
+import io.jsonwebtoken.jackson.io.JacksonSerializer;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.KeyGenerator;
-import javax.crypto.SecretKey;
 import java.security.Key;
-import java.security.NoSuchAlgorithmException;
-import java.util.Base64;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class JwtService {
 
-    private static final String SECRET = "TmV3U2VjcmV0S2V5Rm9ySldUU2lnbmluZ1B1cnBvc2VzMTIzNDU2Nzg=\r\n";
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_AUTHORITIES = "auth";
+    static final String CLAIM_CREDENTIAL_VERSION = "cv";
+
+    static final Duration TOKEN_TTL = Duration.ofMinutes(30);
+
+    private final JwtKeyRing keyRing;
+
+    // Parser and serializer are thread-safe, so build them once. Without an explicit
+    // serializer every Jwts.builder() goes through a ServiceLoader lookup.
+    private final JwtParser parser;
+    private final Serializer<Map<String, ?>> serializer = new JacksonSerializer<>();
+
+    private final JwtClaimsCache claimsCache;
+
+    private final AuthEventJournal journal;
+
+    private final Timer signTimer;
+    private final Timer cachedTimer;
+    private final Timer validTimer;
+    private final Timer invalidTimer;
+
+    public JwtService(JwtKeyRing keyRing, JwtClaimsCache claimsCache, AuthEventJournal journal,
+                      MeterRegistry meterRegistry) {
+        this.keyRing = keyRing;
+        this.claimsCache = claimsCache;
+        this.journal = journal;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    // jjwt 0.11 declares this with a raw JwsHeader, so the override can't be generic
+                    @Override
+                    @SuppressWarnings("rawtypes")
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return verificationKey(header);
+                    }
+                })
+                .build();
+
+        this.signTimer = Timer.builder("auth.jwt.sign").register(meterRegistry);
+        this.cachedTimer = verifyTimer(meterRegistry, "cached");
+        this.validTimer = verifyTimer(meterRegistry, "valid");
+        this.invalidTimer = verifyTimer(meterRegistry, "invalid");
+    }
 
+    private Key verificationKey(JwsHeader<?> header) {
+        Key key = keyRing.verificationKey(header.getKeyId(), Instant.now());
+        if (key == null) throw new SignatureException("Unknown or retired signing key");
+        return key;
+    }
 
-    public JwtService(){
+    private static Timer verifyTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("auth.jwt.verify")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
 
     public String generateToken(String username) {
+        return buildToken(username, new HashMap<>());
+    }
+
+    /**
+     * Token carrying enough claims (user id, authorities, credential version)
+     * for {@link com.kiks.dishdashapi.config.JwtFilter} to rebuild the principal without a lookup.
+     */
+    public String generateToken(UserPrincipal principal) {
 
         Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_USER_ID, principal.getId());
+        claims.put(CLAIM_AUTHORITIES, principal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList());
+        claims.put(CLAIM_CREDENTIAL_VERSION, principal.getCredentialVersion());
 
-        return Jwts.builder()
+        return buildToken(principal.getUsername(), claims);
+    }
+
+    private String buildToken(String username, Map<String, Object> claims) {
+
+        long now = System.currentTimeMillis();
+        long expiresAt = now + TOKEN_TTL.toMillis();
+        String token = signTimer.record(() -> Jwts.builder()
+                .serializeToJsonWith(serializer)
+                .setHeaderParam(JwsHeader.KEY_ID, keyRing.activeKid())
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000*60*30))
-                .signWith(getKey(), SignatureAlgorithm.HS256).compact();
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(expiresAt))
+                .signWith(keyRing.activeKey(), SignatureAlgorithm.HS256).compact());
 
-    }
+        journal.record(AuthEventType.TOKEN_ISSUED, username, expiresAt);
+        return token;
 
-    private Key getKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET);
-        return Keys.hmacShaKeyFor(keyBytes);
     }
 
-    public String extractUserName(String token) {
-        // extract the username from jwt token
-        return extractClaim(token, Claims::getSubject);
+    /**
+     * Parses and verifies the token once.
+     * @return the verified claims, or null if the token is malformed, badly signed or expired
+     */
+    public VerifiedClaims verify(String token) {
+        long start = System.nanoTime();
+
+        VerifiedClaims cached = claimsCache.get(token);
+        if (cached != null) {
+            cachedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached;
+        }
+
+        VerifiedClaims verified = parse(token);
+        (verified == null ? invalidTimer : validTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (verified != null) claimsCache.put(token, verified);
+        return verified;
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimResolver.apply(claims);
-    }
+    private VerifiedClaims parse(String token) {
+        Claims claims;
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getKey())
-                .build().parseClaimsJws(token).getBody();
-    }
+        // we only issue tokens with a subject and an expiry; anything else is not ours
+        if (claims.getSubject() == null || claims.getExpiration() == null) return null;
 
+        return VerifiedClaims.from(claims);
+    }
 
-    public boolean validateToken(String token, UserDetails userDetails) {
-        final String userName = extractUserName(token);
-        return (userName.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    public String extractUserName(String token) {
+        // extract the username from jwt token
+        VerifiedClaims claims = verify(token);
+        return (claims == null) ? null : claims.username();
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean validateToken(String token, UserDetails userDetails) {
+        VerifiedClaims claims = verify(token);
+        return claims != null && claims.username().equals(userDetails.getUsername());
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    /* ================= Records ================= */
+
+    /**
+     * userId, authorities and credentialVersion are null for tokens minted by
+     * {@link #generateToken(String)}; those always need a user lookup.
+     * tokenId (jti) is null for tokens issued before tokens could be revoked individually.
+     */
+    public record VerifiedClaims(String tokenId, String username, Long userId, List<String> authorities,
+                                 Integer credentialVersion, Instant issuedAt, Instant expiresAt) {
+
+        static VerifiedClaims from(Claims claims) {
+            Date iat = claims.getIssuedAt();
+            Number uid = claims.get(CLAIM_USER_ID, Number.class);
+            Number cv = claims.get(CLAIM_CREDENTIAL_VERSION, Number.class);
+            List<?> auth = claims.get(CLAIM_AUTHORITIES, List.class);
+
+            return new VerifiedClaims(
+                    claims.getId(),
+                    claims.getSubject(),
+                    (uid == null) ? null : uid.longValue(),
+                    (auth == null) ? null : auth.stream().map(String::valueOf).toList(),
+                    (cv == null) ? null : cv.intValue(),
+                    (iat == null) ? null : iat.toInstant(),
+                    claims.getExpiration().toInstant());
+        }
+
+        public boolean isSelfContained() {
+            return userId != null && authorities != null && credentialVersion != null;
+        }
+
+        public boolean isExpired(Instant now) {
+            return now.isAfter(expiresAt);
+        }
     }
 }
@@ -0,0 +1,43 @@
+package com.kiks.dishdashapi.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Local fake sender: logs that a message would have been sent instead of sending it. The fallback
+ * while there is no real sender ({@code notification.sender=log}, or unset - then with a warning).
+ * The recipient is masked at INFO; the body, one-time codes included, is only logged at DEBUG,
+ * which the dev profile turns on so a code can be read back.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.sender", havingValue = "log", matchIfMissing = true)
+public class LoggingNotificationSender implements NotificationSender {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggingNotificationSender.class);
+
+    public LoggingNotificationSender(@Value("${notification.sender:}") String configured) {
+        if (configured.isBlank()) {
+            log.warn("notification.sender is not set: notifications are logged, not delivered");
+        }
+    }
+
+    @Override
+    public void send(List<Notification> batch) {
+        for (Notification n : batch) {
+            log.info("notification to {} not sent (logging sender)", mask(n.recipient()));
+            log.debug("notification to {}: {}", n.recipient(), n.body());
+        }
+    }
+
+    // a***@example.com
+    static String mask(String recipient) {
+        if (recipient == null) return null;
+        int at = recipient.indexOf('@');
+        return (at <= 0) ? "***" : recipient.charAt(0) + "***" + recipient.substring(at);
+    }
+}
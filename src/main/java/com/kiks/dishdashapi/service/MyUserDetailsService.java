@@ -1,37 +1,145 @@
 package com.kiks.dishdashapi.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.kiks.dishdashapi.model.User;
+import com.kiks.dishdashapi.model.UserCredentials;
 import com.kiks.dishdashapi.model.UserPrincipal;
 import com.kiks.dishdashapi.repo.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.jspecify.annotations.NullUnmarked;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class MyUserDetailsService implements UserDetailsService {
 
+    private static final Logger log = LoggerFactory.getLogger(MyUserDetailsService.class);
+
     private final UserRepository repo;
 
-    public MyUserDetailsService(UserRepository repo) {
+    private final ReadYourWrites readYourWrites;
+
+    // database lookups only; cache hits show up in the users.details cache metrics
+    private final Timer foundTimer;
+    private final Timer notFoundTimer;
+
+    // Near cache of principals keyed by normalized email; null when disabled
+    private final Cache<String, UserPrincipal> cache;
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // a burst of requests for one account (login retries, parallel API calls) makes one query
+    private final SingleFlight<String, UserPrincipal> loads;
+
+    public MyUserDetailsService(UserRepository repo,
+                                ReadYourWrites readYourWrites,
+                                MeterRegistry meterRegistry,
+                                @Value("${auth.user-cache.enabled:true}") boolean cacheEnabled,
+                                @Value("${auth.user-cache.max-size:10000}") long maxSize,
+                                @Value("${auth.user-cache.ttl:PT5M}") Duration ttl) {
         this.repo = repo;
+        this.readYourWrites = readYourWrites;
+        this.foundTimer = lookupTimer(meterRegistry, "found");
+        this.notFoundTimer = lookupTimer(meterRegistry, "not_found");
+        this.loads = new SingleFlight<>(meterRegistry, "auth.user.lookup.calls");
+
+        if (cacheEnabled) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(maxSize)
+                    .expireAfterWrite(ttl)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "users.details");
+        } else {
+            this.cache = null;
+        }
     }
 
 
     @Override
     @NullUnmarked
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-       User user = repo.findByEmail(email);
+        if (email == null) return load(null);
+
+        String key = User.normalizeEmail(email);
+        if (cache == null) return loads.execute(key, () -> load(key));
+
+        UserPrincipal cached = cache.getIfPresent(key);
+        if (cached != null) return cached;
+
+        // Load outside the cache's compute lock: a virtual thread blocking on the database
+        // inside it would pin its carrier. Misses are not cached, so a later registration
+        // is picked up right away.
+        long generation = invalidations.get();
+        UserPrincipal loaded = loads.execute(key, () -> load(key));
+        // don't re-insert something that was invalidated while we were loading it
+        if (invalidations.get() == generation) cache.put(key, loaded);
+        return loaded;
+    }
+
+    /**
+     * Reads the user from the primary, past the cache: login and refresh must see a disable or lock
+     * made on another node right away, not once this node's cached copy expires. Refreshes the cache.
+     */
+    public UserDetails loadUserFromPrimary(String email) throws UsernameNotFoundException {
+        String key = User.normalizeEmail(email);
+        long generation = invalidations.get();
+        UserPrincipal loaded = readYourWrites.onPrimary(() -> load(key));
+        if (cache != null && key != null && invalidations.get() == generation) cache.put(key, loaded);
+        return loaded;
+    }
 
-        if (user==null) {
-            System.out.println("User 404");
+    /** This service reading through {@link #loadUserFromPrimary}. */
+    public UserDetailsService fromPrimary() {
+        return this::loadUserFromPrimary;
+    }
+
+    private static Timer lookupTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("auth.user.lookup")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private UserPrincipal load(String email) {
+        long start = System.nanoTime();
+        String normalized = User.normalizeEmail(email);
+        // a replica read unless this user was just written here; not found there, asked again on the primary
+        UserCredentials credentials = readYourWrites.read(normalized,
+                () -> repo.findCredentialsByEmail(normalized), Optional::isPresent).orElse(null);
+
+        if (credentials==null) {
+            notFoundTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.debug("Login for unknown user");
             throw new UsernameNotFoundException("User 404");
         }
-        return new UserPrincipal(user);
+        foundTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new UserPrincipal(credentials.toUser());
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.email() == null) return;
+        String key = User.normalizeEmail(event.email());
+        // a load already running may have read the old row: later callers start a new one
+        loads.forget(key);
+        if (cache != null) {
+            invalidations.incrementAndGet();
+            cache.invalidate(key);
+        }
     }
 
 }
@@ -0,0 +1,8 @@
+package com.kiks.dishdashapi.service;
+
+import java.time.Instant;
+
+/**
+ * One outbound message (e-mail/SMS) waiting in the {@link NotificationDispatcher} queue.
+ */
+public record Notification(String recipient, String body, Instant enqueuedAt) {}
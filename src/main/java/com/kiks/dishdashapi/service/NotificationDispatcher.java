@@ -0,0 +1,130 @@
+package com.kiks.dishdashapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Outbound notification pipeline.
+ * - Request threads only {@link #enqueue} into a bounded in-memory queue.
+ * - Virtual-thread workers drain it in batches and hand them to the {@link NotificationSender}.
+ * - A failed batch is retried with exponential backoff, then dropped and counted.
+ */
+@Service
+public class NotificationDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private final NotificationSender sender;
+
+    private final BlockingQueue<Notification> queue;
+
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final Timer deliveryLatency;
+    private final Counter delivered;
+    private final Counter dropped;
+    private final Counter rejected;
+
+    public NotificationDispatcher(NotificationSender sender,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${notification.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${notification.workers:4}") int workers,
+                                  @Value("${notification.batch-size:50}") int batchSize,
+                                  @Value("${notification.max-attempts:5}") int maxAttempts,
+                                  @Value("${notification.initial-backoff:PT0.2S}") Duration initialBackoff) {
+        this.sender = sender;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+
+        this.deliveryLatency = Timer.builder("notification.delivery.latency")
+                .register(meterRegistry);
+        this.delivered = Counter.builder("notification.delivered").register(meterRegistry);
+        this.dropped = Counter.builder("notification.dropped").register(meterRegistry);
+        this.rejected = Counter.builder("notification.rejected").register(meterRegistry);
+        Gauge.builder("notification.backlog", queue, BlockingQueue::size)
+                .register(meterRegistry);
+
+        for (int i = 0; i < workers; i++) {
+            this.workers.add(Thread.ofVirtual().name("notify-", i).start(this::drainLoop));
+        }
+    }
+
+    /**
+     * Queues a message for delivery without waiting for it.
+     * @return false if the queue is full
+     */
+    public boolean enqueue(String recipient, String body) {
+        boolean accepted = queue.offer(new Notification(recipient, body, Instant.now()));
+        if (!accepted) rejected.increment();
+        return accepted;
+    }
+
+    public int backlog() {
+        return queue.size();
+    }
+
+    private void drainLoop() {
+        List<Notification> batch = new ArrayList<>(batchSize);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+
+                deliver(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deliver(List<Notification> batch) throws InterruptedException {
+        Duration backoff = initialBackoff;
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                sender.send(batch);
+                break;
+            } catch (Exception e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("Dropping {} notifications after {} attempts", batch.size(), attempt, e);
+                    dropped.increment(batch.size());
+                    return;
+                }
+                Thread.sleep(backoff);
+                backoff = backoff.multipliedBy(2);
+            }
+        }
+
+        Instant now = Instant.now();
+        for (Notification n : batch) {
+            deliveryLatency.record(Duration.between(n.enqueuedAt(), now));
+        }
+        delivered.increment(batch.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.forEach(Thread::interrupt);
+    }
+}
@@ -0,0 +1,16 @@
+package com.kiks.dishdashapi.service;
+
+import java.util.List;
+
+/**
+ * Delivers notifications to the outside world (mail, SMS gateway, ...).
+ * Called from the dispatcher's worker threads, never from a request thread.
+ */
+public interface NotificationSender {
+
+    /**
+     * Sends a batch; throwing means nothing in the batch can be assumed delivered
+     * and the whole batch is retried.
+     */
+    void send(List<Notification> batch) throws Exception;
+}
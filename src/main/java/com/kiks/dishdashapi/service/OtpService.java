@@ -1,63 +1,110 @@
 package com.kiks.dishdashapi.service;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.security.SecureRandom;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * OTPs are 6-digit codes kept as ints from generation to comparison; only the outgoing
+ * message renders one as text. Keys are normalized emails.
+ * Requesting, rejecting (cooldown) and verifying a code allocate nothing in this class, the
+ * in-memory store or the {@link AuthEventJournal}, so a reset campaign doesn't turn into GC churn;
+ * a successful verify allocates the reset token it hands out.
+ */
 @Service
 public class OtpService {
 
-    private static final SecureRandom RANDOM = new SecureRandom();
+    /** "No code": returned by {@link #generateAndStoreOtp} during a cooldown, and by {@link #parseCode} for non-codes. */
+    public static final int NO_CODE = -1;
+
+    private static final int CODE_SPACE = 1_000_000;
+    private static final int CODE_DIGITS = 6;
 
     // OTP expires fast
-    private static final Duration OTP_TTL = Duration.ofMinutes(1);
+    private static final long OTP_TTL_MILLIS = Duration.ofMinutes(1).toMillis();
 
     // Reset token lasts a bit longer
     private static final Duration RESET_TOKEN_TTL = Duration.ofMinutes(10);
 
     // Security controls
     private static final int MAX_ATTEMPTS = 5;
-    private static final Duration REQUEST_COOLDOWN = Duration.ofSeconds(60);
+    private static final long REQUEST_COOLDOWN_MILLIS = Duration.ofSeconds(60).toMillis();
+
+    private final OtpStore store;
+
+    private final AuthEventJournal journal;
+
+    private final CodeSource codes = new CodeSource();
+
+    // otp.issue{outcome=cooldown} is the cooldown rejection count
+    private final Timer issued;
+    private final Timer cooldown;
+    private final Timer verified;
+    private final Timer verifyRejected;
+    private final Timer resetAccepted;
+    private final Timer resetRejected;
+
+    public OtpService(OtpStore store, AuthEventJournal journal, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.journal = journal;
+
+        this.issued = timer(meterRegistry, "otp.issue", "issued");
+        this.cooldown = timer(meterRegistry, "otp.issue", "cooldown");
+        this.verified = timer(meterRegistry, "otp.verify", "success");
+        this.verifyRejected = timer(meterRegistry, "otp.verify", "rejected");
+        this.resetAccepted = timer(meterRegistry, "otp.reset-token.verify", "success");
+        this.resetRejected = timer(meterRegistry, "otp.reset-token.verify", "rejected");
+        // OTP entries plus reset tokens; for the JDBC store this is a COUNT per scrape
+        Gauge.builder("otp.store.size", store, OtpStore::size)
+                .register(meterRegistry);
+    }
 
-    private final Map<String, OtpData> otpStore = new ConcurrentHashMap<>();
-    private final Map<String, ResetTokenData> resetTokenStore = new ConcurrentHashMap<>();
-    private final Map<String, CooldownData> cooldownStore = new ConcurrentHashMap<>();
+    private static Timer timer(MeterRegistry meterRegistry, String name, String outcome) {
+        return Timer.builder(name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
 
     /* ================= OTP REQUEST ================= */
 
     /**
      * Generates and stores OTP if cooldown passed.
-     * @return otp (for now) or null if still cooling down
+     * @return the code (render it with {@link #format}), or {@link #NO_CODE} if still cooling down
      */
-    public String generateAndStoreOtp(String key) {
-        Instant now = Instant.now();
+    public int generateAndStoreOtp(String key) {
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
 
-        // Cooldown check
-        CooldownData cd = cooldownStore.get(key);
-        if (cd != null && now.isBefore(cd.nextAllowedAt())) {
-            return null; // still cooling down
-        }
+        int otp = codes.next();
 
-        String otp = generate6DigitOtp();
-        Instant expiresAt = now.plus(OTP_TTL);
-
-        otpStore.put(key, new OtpData(otp, expiresAt, MAX_ATTEMPTS));
-
-        // Start cooldown window
-        cooldownStore.put(key, new CooldownData(now.plus(REQUEST_COOLDOWN)));
+        // Cooldown check and store happen atomically in the store
+        if (!store.issueOtp(key, otp, now + OTP_TTL_MILLIS, MAX_ATTEMPTS, now + REQUEST_COOLDOWN_MILLIS, now)) {
+            cooldown.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            journal.record(AuthEventType.OTP_COOLDOWN, key);
+            return NO_CODE; // still cooling down
+        }
 
+        issued.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        journal.record(AuthEventType.OTP_ISSUED, key);
         return otp;
     }
 
+    /** Takes back an OTP that could not be sent, cooldown included, so the user can ask again. */
+    public void withdrawOtp(String key, int otp) {
+        store.withdrawOtp(key, otp);
+    }
+
     public Instant getNextAllowedRequestTime(String key) {
-        CooldownData cd = cooldownStore.get(key);
-        return (cd == null) ? Instant.EPOCH : cd.nextAllowedAt();
+        return store.cooldownUntil(key);
     }
 
     /* ================= OTP VERIFY ================= */
@@ -65,92 +112,111 @@ public class OtpService {
     /**
      * Verifies OTP; if valid, returns a reset UUID.
      * - Wrong attempts decrement; after MAX_ATTEMPTS failures -> OTP invalidated.
+     *   Input that isn't a 6-digit code counts as a wrong attempt.
      * - Expired OTP removed.
      * Returns null if invalid/expired/too many attempts.
      */
-    public String verifyOtpAndIssueResetToken(String key, String providedOtp) {
-        Instant now = Instant.now();
-
-        final Holder<String> issued = new Holder<>(null);
-
-        otpStore.compute(key, (k, data) -> {
-            if (data == null) return null;
-
-            // Expired -> delete
-            if (now.isAfter(data.expiresAt())) return null;
-
-            // Wrong OTP -> decrement attempts, possibly delete
-            if (!constantTimeEquals(data.otp(), providedOtp)) {
-                int left = data.attemptsLeft() - 1;
-                if (left <= 0) return null; // invalidate OTP
-                return new OtpData(data.otp(), data.expiresAt(), left);
-            }
-
-            // Correct OTP -> delete OTP and issue reset token
-            String resetToken = UUID.randomUUID().toString();
-            resetTokenStore.put(resetToken, new ResetTokenData(key, now.plus(RESET_TOKEN_TTL)));
-            issued.value = resetToken;
+    public String verifyOtpAndIssueResetToken(String key, CharSequence providedOtp) {
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+
+        if (!store.consumeOtp(key, parseCode(providedOtp), now)) {
+            verifyRejected.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            journal.record(AuthEventType.OTP_REJECTED, key);
+            return null;
+        }
 
-            return null; // remove OTP (one-time use)
-        });
+        // Correct OTP -> issue reset token
+        String resetToken = UUID.randomUUID().toString();
+        store.storeResetToken(resetToken, key, Instant.ofEpochMilli(now).plus(RESET_TOKEN_TTL));
 
-        return issued.value;
+        verified.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        journal.record(AuthEventType.OTP_VERIFIED, key);
+        return resetToken;
     }
 
     /* ================= RESET TOKEN ================= */
 
     public boolean verifyResetToken(String resetToken, String key) {
-        ResetTokenData data = resetTokenStore.get(resetToken);
-        if (data == null) return false;
-
-        if (Instant.now().isAfter(data.expiresAt())) {
-            resetTokenStore.remove(resetToken);
-            return false;
-        }
+        long start = System.nanoTime();
+        boolean ok = store.consumeResetToken(resetToken, key, Instant.now());
+        (ok ? resetAccepted : resetRejected).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return ok;
+    }
 
-        if (!data.key().equals(key)) return false;
+    /* ================= Codes ================= */
 
-        resetTokenStore.remove(resetToken); // one-time use
-        return true;
+    /** The code as the user sees it: always 6 digits, zero-padded. */
+    public static String format(int code) {
+        char[] digits = new char[CODE_DIGITS];
+        for (int i = CODE_DIGITS - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + code % 10);
+            code /= 10;
+        }
+        return new String(digits);
     }
 
-    /* ================= Utils ================= */
-
-    private String generate6DigitOtp() {
-        int otp = RANDOM.nextInt(1_000_000);
-        return String.format("%06d", otp);
+    /**
+     * Exactly 6 ASCII digits, surrounding whitespace ignored.
+     * @return the code, or {@link #NO_CODE} for anything else
+     */
+    public static int parseCode(CharSequence s) {
+        if (s == null) return NO_CODE;
+
+        int from = 0;
+        int to = s.length();
+        while (from < to && Character.isWhitespace(s.charAt(from))) from++;
+        while (to > from && Character.isWhitespace(s.charAt(to - 1))) to--;
+        if (to - from != CODE_DIGITS) return NO_CODE;
+
+        int code = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return NO_CODE;
+            code = code * 10 + (c - '0');
+        }
+        return code;
     }
 
-    private boolean constantTimeEquals(String a, String b) {
-        if (a == null || b == null) return false;
-        int diff = a.length() ^ b.length();
-        int len = Math.min(a.length(), b.length());
-        for (int i = 0; i < len; i++) diff |= a.charAt(i) ^ b.charAt(i);
-        return diff == 0;
+    /**
+     * Uniform codes from SecureRandom without its per-call allocation: SecureRandom.nextInt
+     * allocates a byte[] for every draw, so random bytes are fetched in blocks and
+     * consumed 4 at a time under a lock.
+     */
+    private static final class CodeSource {
+
+        // largest multiple of CODE_SPACE below 2^31; draws above it are rejected to keep codes uniform
+        private static final int LIMIT = Integer.MAX_VALUE - (Integer.MAX_VALUE % CODE_SPACE);
+
+        private final SecureRandom random = new SecureRandom();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final byte[] block = new byte[256];
+        private int pos = block.length;
+
+        int next() {
+            lock.lock();
+            try {
+                while (true) {
+                    if (pos == block.length) {
+                        random.nextBytes(block);
+                        pos = 0;
+                    }
+                    int r = ((block[pos] & 0x7f) << 24) | ((block[pos + 1] & 0xff) << 16)
+                            | ((block[pos + 2] & 0xff) << 8) | (block[pos + 3] & 0xff);
+                    pos += 4;
+                    if (r < LIMIT) return r % CODE_SPACE;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
     }
 
     /* ================= Cleanup ================= */
 
-    @Scheduled(fixedDelay = 30_000)
+    // Cheap now: the store only touches entries that are actually due
+    @Scheduled(fixedDelay = 1_000)
     public void cleanupExpired() {
-        Instant now = Instant.now();
-
-        otpStore.entrySet().removeIf(e -> now.isAfter(e.getValue().expiresAt()));
-        resetTokenStore.entrySet().removeIf(e -> now.isAfter(e.getValue().expiresAt()));
-        cooldownStore.entrySet().removeIf(e -> now.isAfter(e.getValue().nextAllowedAt()));
-    }
-
-    /* ================= Records ================= */
-
-    public record OtpData(String otp, Instant expiresAt, int attemptsLeft) {}
-
-    public record ResetTokenData(String key, Instant expiresAt) {}
-
-    public record CooldownData(Instant nextAllowedAt) {}
-
-    // Tiny holder so we can “return” a value from inside compute()
-    private static final class Holder<T> {
-        T value;
-        Holder(T value) { this.value = value; }
+        store.purgeExpired(Instant.now());
     }
 }
@@ -0,0 +1,61 @@
+package com.kiks.dishdashapi.service;
+
+import java.time.Instant;
+
+/**
+ * Storage behind {@link OtpService}: OTPs with their attempt counter and request cooldown
+ * (one entry per key), plus one-time reset tokens.
+ * Implementations must make each method atomic per key / per token.
+ * <p>
+ * The OTP methods run for every request during a reset campaign, so they take the code as an int
+ * (0..999999, see {@link OtpService#format}) and times as epoch millis instead of objects.
+ */
+public interface OtpStore {
+
+    /**
+     * Stores a fresh OTP for key and starts its cooldown, unless a cooldown is still running.
+     * @return true if stored, false if still cooling down
+     */
+    boolean issueOtp(String key, int otp, long expiresAt, int maxAttempts, long cooldownUntil, long now);
+
+    /** @return end of the current cooldown for key, or {@link Instant#EPOCH} if none */
+    Instant cooldownUntil(String key);
+
+    /**
+     * Checks the OTP for key.
+     * - Wrong OTP uses up an attempt; the last failed attempt drops the OTP.
+     * - Expired OTP is dropped.
+     * - Correct OTP is dropped (one-time use).
+     * @param providedOtp the code as entered, or {@link OtpService#NO_CODE} if it wasn't one (still uses up an attempt)
+     * @return true only for a correct, unexpired OTP
+     */
+    boolean consumeOtp(String key, int providedOtp, long now);
+
+    /**
+     * Drops the OTP for key together with its cooldown, if it still holds otp. Used when the
+     * code could not be sent, so the user can ask again right away.
+     */
+    void withdrawOtp(String key, int otp);
+
+    void storeResetToken(String resetToken, String key, Instant expiresAt);
+
+    /**
+     * One-time check of a reset token: true (and removed) only if it exists,
+     * has not expired and was issued for key.
+     */
+    boolean consumeResetToken(String resetToken, String key, Instant now);
+
+    /** Drops everything that has expired by now. */
+    void purgeExpired(Instant now);
+
+    /** Number of live OTP/cooldown entries plus reset tokens (approximate). */
+    int size();
+
+    /**
+     * Codes are compared as whole ints: one XOR, so the time taken doesn't depend on how many
+     * leading digits match. A stored {@link OtpService#NO_CODE} never matches.
+     */
+    static boolean codesMatch(int stored, int provided) {
+        return ((stored ^ provided) | (stored >>> 31)) == 0;
+    }
+}
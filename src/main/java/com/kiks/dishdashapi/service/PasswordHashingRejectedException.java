@@ -0,0 +1,20 @@
+package com.kiks.dishdashapi.service;
+
+import java.io.Serial;
+
+/**
+ * Thrown when the password hashing pool is saturated and the request should be retried later.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+
+    public PasswordHashingRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,91 @@
+package com.kiks.dishdashapi.service;
+
+import com.kiks.dishdashapi.model.User;
+import com.kiks.dishdashapi.repo.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Re-hashes passwords stored with an outdated Argon2 profile.
+ * The login that spotted the old hash does not wait for it: the new hash is computed
+ * and written on a background thread, at most once per user at a time.
+ */
+@Service
+public class PasswordUpgradeService implements UserDetailsPasswordService {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordUpgradeService.class);
+
+    static final int QUEUE_CAPACITY = 256;
+
+    private final UserRepository repo;
+
+    private final BoundedPasswordEncoder encoder;
+
+    private final ApplicationEventPublisher events;
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    // single worker, small queue: upgrades are best-effort and retried on the next login.
+    // A full queue throws (AbortPolicy), so the caller can forget the user again
+    private final ThreadPoolExecutor worker = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                Thread t = new Thread(r, "password-upgrade");
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.AbortPolicy());
+
+    public PasswordUpgradeService(UserRepository repo, BoundedPasswordEncoder encoder, ApplicationEventPublisher events) {
+        this.repo = repo;
+        this.encoder = encoder;
+        this.events = events;
+    }
+
+    public void upgradeInBackground(UserDetails user, String rawPassword) {
+        String email = user.getUsername();
+        if (!inFlight.add(email)) return;
+
+        try {
+            worker.execute(() -> {
+                try {
+                    updatePassword(user, encoder.encode(rawPassword));
+                } catch (RuntimeException e) {
+                    log.warn("Password upgrade failed for a user, will retry on next login", e);
+                } finally {
+                    inFlight.remove(email);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(email);
+        }
+    }
+
+    /**
+     * Stores an already encoded password in place of the hash {@code user} was loaded with.
+     * Not a password change, so the credential version stays the same and issued tokens remain
+     * valid. Only the password column is written, and only while it still holds that hash: if
+     * the password was changed or reset since the login, the upgrade is dropped.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        String email = User.normalizeEmail(user.getUsername());
+        if (repo.upgradePassword(email, user.getPassword(), newPassword) == 0) return user;
+
+        events.publishEvent(new UserChangedEvent(email));
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdown();
+    }
+}
@@ -0,0 +1,88 @@
+package com.kiks.dishdashapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kiks.dishdashapi.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Keeps reads about a user on the primary for {@code datasource.replica.read-your-writes-window}
+ * after this node changed that user (any {@link UserChangedEvent}), so a login right after
+ * registration or a password change doesn't hit a replica that hasn't caught up yet.
+ * - A read is moved to the primary by running it inside a read-write transaction: the repository's
+ *   read-only transaction joins it and takes its connection (see ReadReplicaConfig).
+ * - The window only covers the node that took the write. For a client whose next request lands
+ *   elsewhere, reads that can tell "not there" apart retry a miss on the primary
+ *   ({@link #read(String, Supplier, Predicate)}): a user registered a moment ago is then still found.
+ * A no-op when there is no replica.
+ */
+@Component
+public class ReadYourWrites {
+
+    private final boolean active;
+    private final TransactionTemplate primaryTx;
+
+    // normalized emails written within the window; null when inactive
+    private final Cache<String, Boolean> recentWrites;
+
+    private final Counter pinnedReads;
+    private final Counter missedReads;
+
+    public ReadYourWrites(PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${datasource.replica.enabled:false}") boolean replicaEnabled,
+                          @Value("${datasource.replica.read-your-writes-window:PT5S}") Duration window,
+                          @Value("${datasource.replica.read-your-writes-max-entries:100000}") long maxEntries) {
+        this.active = replicaEnabled && !window.isZero();
+        this.primaryTx = new TransactionTemplate(transactionManager);
+        this.recentWrites = active
+                ? Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(window).build()
+                : null;
+        this.pinnedReads = Counter.builder("datasource.replica.pinned.reads")
+                .description("Reads sent to the primary because the user was written within the window")
+                .register(meterRegistry);
+        this.missedReads = Counter.builder("datasource.replica.missed.reads")
+                .description("Replica reads that found nothing and were repeated on the primary")
+                .register(meterRegistry);
+    }
+
+    /** Runs {@code query} on the primary if {@code email} (normalized) was written recently, else as is. */
+    public <T> T read(String email, Supplier<T> query) {
+        if (!active || email == null || recentWrites.getIfPresent(email) == null) return query.get();
+
+        pinnedReads.increment();
+        return primaryTx.execute(status -> query.get());
+    }
+
+    /**
+     * Like {@link #read(String, Supplier)}, and if the result isn't {@code found} repeats {@code query}
+     * on the primary, in case the user was written through another node the replica hasn't caught up with.
+     */
+    public <T> T read(String email, Supplier<T> query, Predicate<T> found) {
+        T result = read(email, query);
+        if (!active || found.test(result)) return result;
+
+        missedReads.increment();
+        return primaryTx.execute(status -> query.get());
+    }
+
+    /** Runs {@code query} on the primary, e.g. the read half of a read-modify-write. */
+    public <T> T onPrimary(Supplier<T> query) {
+        return active ? primaryTx.execute(status -> query.get()) : query.get();
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (active && event.email() != null) recentWrites.put(User.normalizeEmail(event.email()), Boolean.TRUE);
+    }
+}
@@ -0,0 +1,17 @@
+package com.kiks.dishdashapi.service;
+
+import java.time.Instant;
+
+/**
+ * A stored refresh token. Only the SHA-256 of the token is kept.
+ * All tokens rotated out of one login share a family; {@code sessionExpiresAt}
+ * is fixed at login and caps how far rotation can slide {@code expiresAt}.
+ */
+public record RefreshToken(String tokenHash, String familyId, String email, int credentialVersion,
+                           Instant expiresAt, Instant sessionExpiresAt) {
+
+    RefreshToken next(String nextHash, Instant nextExpiresAt) {
+        Instant capped = nextExpiresAt.isAfter(sessionExpiresAt) ? sessionExpiresAt : nextExpiresAt;
+        return new RefreshToken(nextHash, familyId, email, credentialVersion, capped, sessionExpiresAt);
+    }
+}
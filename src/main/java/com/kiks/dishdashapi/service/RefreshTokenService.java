@@ -0,0 +1,230 @@
+package com.kiks.dishdashapi.service;
+
+import com.kiks.dishdashapi.model.UserPrincipal;
+import com.kiks.dishdashapi.service.RefreshTokenStore.Outcome;
+import com.kiks.dishdashapi.service.RefreshTokenStore.Rotation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Rotating refresh tokens, so an expired access token costs a hash lookup instead of an Argon2 login.
+ * - Tokens are 256 random bits; only their SHA-256 is stored (they are not guessable, so a fast hash is enough).
+ * - Each refresh consumes the token and hands out a successor; presenting a consumed token again
+ *   revokes the whole login session, since either the client or an attacker holds a stolen copy.
+ * - Except within {@code refresh.reuse-grace} of its use: then it is taken for a retry of the same
+ *   refresh (the response got lost, two tabs raced) and gets the same successor again. Successors
+ *   are an HMAC of the token under {@code refresh.successor-key}, so every replica derives the same one
+ *   and only the hash still needs storing. Past the grace a second use is caught as reuse, as before.
+ * - Sessions slide by {@code refresh.ttl} on every use, up to {@code refresh.max-session} after login.
+ * - A password change (credential version bump) ends existing sessions at their next refresh;
+ *   so does disabling or locking the account.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final RefreshTokenStore store;
+    private final UserDetailsService userDetailsService;
+
+    private final Duration ttl;
+    private final Duration maxSession;
+    private final Duration reuseGrace;
+    private final SecretKeySpec successorKey;
+
+    private final Counter rotated;
+    private final Counter retried;
+    private final Counter rejected;
+    private final Counter reused;
+    private final Counter staleCredentials;
+    private final Counter disabled;
+
+    // the account is read from the primary: a disable or lock on another node ends the session at its next refresh
+    @Autowired
+    public RefreshTokenService(RefreshTokenStore store,
+                               MyUserDetailsService userDetailsService,
+                               MeterRegistry meterRegistry,
+                               @Value("${refresh.ttl:P14D}") Duration ttl,
+                               @Value("${refresh.max-session:P30D}") Duration maxSession,
+                               @Value("${refresh.reuse-grace:PT10S}") Duration reuseGrace,
+                               @Value("${refresh.successor-key:}") String successorKey,
+                               @Value("${refresh.require-successor-key:true}") boolean requireSuccessorKey) {
+        this(store, userDetailsService.fromPrimary(), meterRegistry, ttl, maxSession, reuseGrace,
+                required(successorKey, requireSuccessorKey));
+    }
+
+    RefreshTokenService(RefreshTokenStore store,
+                        UserDetailsService userDetailsService,
+                        MeterRegistry meterRegistry,
+                        Duration ttl,
+                        Duration maxSession,
+                        Duration reuseGrace,
+                        String successorKey) {
+        this.store = store;
+        this.userDetailsService = userDetailsService;
+        this.ttl = ttl;
+        this.maxSession = maxSession;
+        this.reuseGrace = reuseGrace;
+        this.successorKey = new SecretKeySpec(successorKey(successorKey), "HmacSHA256");
+
+        this.rotated = counter(meterRegistry, "rotated");
+        this.retried = counter(meterRegistry, "retried");
+        this.rejected = counter(meterRegistry, "invalid");
+        this.reused = counter(meterRegistry, "reused");
+        this.staleCredentials = counter(meterRegistry, "stale_credentials");
+        this.disabled = counter(meterRegistry, "disabled");
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("auth.refresh")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static String required(String successorKey, boolean required) {
+        if (required && successorKey.isBlank()) {
+            throw new IllegalStateException("refresh.successor-key is not set (base64, 32 random bytes, the same on every "
+                    + "replica); only local runs may go without it, with refresh.require-successor-key=false");
+        }
+        return successorKey;
+    }
+
+    private static byte[] successorKey(String configured) {
+        if (!configured.isBlank()) return Base64.getDecoder().decode(configured);
+
+        log.warn("refresh.successor-key is not set: a refresh retried on another replica counts as token reuse");
+        byte[] key = new byte[32];
+        RANDOM.nextBytes(key);
+        return key;
+    }
+
+    public Duration ttl() {
+        return ttl;
+    }
+
+    /** Starts a new session for a freshly authenticated user. */
+    public String issue(UserPrincipal principal) {
+        Instant now = Instant.now();
+        String token = newToken();
+
+        store.save(new RefreshToken(hash(token), UUID.randomUUID().toString(), principal.getUsername(),
+                principal.getCredentialVersion(), now.plus(ttl), now.plus(maxSession)));
+        return token;
+    }
+
+    /**
+     * Consumes the refresh token.
+     * @return the user and the successor token, or null if the token can't be used (the client must log in)
+     */
+    public Refreshed refresh(String token) {
+        if (token == null || token.isBlank()) return null;
+
+        String next = successor(token);
+        Instant now = Instant.now();
+        Rotation rotation = store.rotate(hash(token), hash(next), now.plus(ttl), now, reuseGrace);
+
+        if (rotation.outcome() == Outcome.REUSED) {
+            reused.increment();
+            log.warn("Refresh token reused; revoked session {}", rotation.previous().familyId());
+            return null;
+        }
+        if (rotation.outcome() != Outcome.ROTATED && rotation.outcome() != Outcome.RETRIED) {
+            rejected.increment();
+            return null;
+        }
+
+        RefreshToken previous = rotation.previous();
+        UserDetails user;
+        try {
+            user = userDetailsService.loadUserByUsername(previous.email());
+        } catch (UsernameNotFoundException e) {
+            store.revokeFamily(previous.familyId());
+            rejected.increment();
+            return null;
+        }
+
+        if (!(user instanceof UserPrincipal principal) || principal.getCredentialVersion() != previous.credentialVersion()) {
+            store.revokeFamily(previous.familyId());
+            staleCredentials.increment();
+            return null;
+        }
+        if (!principal.isEnabled() || !principal.isAccountNonLocked()) {
+            store.revokeFamily(previous.familyId());
+            disabled.increment();
+            return null;
+        }
+
+        (rotation.outcome() == Outcome.RETRIED ? retried : rotated).increment();
+        return new Refreshed(principal, next);
+    }
+
+    /** Ends the session the token belongs to (logout). */
+    public void revoke(String token) {
+        if (token != null && !token.isBlank()) store.revokeFamilyOf(hash(token));
+    }
+
+    /** Ends every session of the user. */
+    public void revokeAll(String email) {
+        store.revokeUser(email);
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void purgeExpired() {
+        store.purgeExpired(Instant.now());
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return ENCODER.encodeToString(bytes);
+    }
+
+    // same token, same successor, on every replica
+    private String successor(String token) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(successorKey);
+            return ENCODER.encodeToString(mac.doFinal(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (GeneralSecurityException e) {
+            // every JRE ships HmacSHA256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String hash(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            // every JRE ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Refreshed(UserPrincipal principal, String refreshToken) {}
+}
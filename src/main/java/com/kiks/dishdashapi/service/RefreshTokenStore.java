@@ -0,0 +1,53 @@
+package com.kiks.dishdashapi.service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Storage behind {@link RefreshTokenService}. Tokens are single-use: rotating one marks it used
+ * and stores its successor in the same family. Used tokens are kept until they expire,
+ * so presenting one again can be detected as reuse.
+ * Implementations must make {@link #rotate} atomic per token, and revoking a family or a user
+ * must not scan every stored token.
+ */
+public interface RefreshTokenStore {
+
+    void save(RefreshToken token);
+
+    /**
+     * Marks the token used and stores {@code previous.next(nextHash, nextExpiresAt)}.
+     * - ROTATED: the token was live and unused.
+     * - RETRIED: the token was used less than {@code reuseGrace} before now, by a rotation to the same
+     *   {@code nextHash}: a retry of that refresh, nothing is changed.
+     * - REUSED: the token was already used otherwise; its whole family is revoked.
+     * - INVALID: unknown, expired or revoked; {@code previous} may be null.
+     */
+    Rotation rotate(String tokenHash, String nextHash, Instant nextExpiresAt, Instant now, Duration reuseGrace);
+
+    /** {@link #rotate(String, String, Instant, Instant, Duration)} without a grace period. */
+    default Rotation rotate(String tokenHash, String nextHash, Instant nextExpiresAt, Instant now) {
+        return rotate(tokenHash, nextHash, nextExpiresAt, now, Duration.ZERO);
+    }
+
+    /** Revokes every token of the family, used or not. */
+    void revokeFamily(String familyId);
+
+    /** Revokes the family the token belongs to (logout); unknown tokens are ignored. */
+    void revokeFamilyOf(String tokenHash);
+
+    /** Revokes every session of the user. */
+    void revokeUser(String email);
+
+    /** Drops tokens that have expired by now. */
+    void purgeExpired(Instant now);
+
+    /** Number of stored tokens, used ones included (approximate). */
+    int size();
+
+    enum Outcome { ROTATED, RETRIED, REUSED, INVALID }
+
+    record Rotation(Outcome outcome, RefreshToken previous) {
+
+        static final Rotation INVALID = new Rotation(Outcome.INVALID, null);
+    }
+}
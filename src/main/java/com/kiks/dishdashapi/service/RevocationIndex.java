@@ -0,0 +1,117 @@
+package com.kiks.dishdashapi.service;
+
+import com.kiks.dishdashapi.service.RevocationStore.Revocation;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory denylist: exact maps of revoked token ids and users, fronted by a bloom filter.
+ * Almost every request is for a token that was never revoked, and the filter answers those
+ * without hashing into the maps. A filter hit is confirmed against the maps.
+ * - Entries carry their expiry and are dropped by {@link #purgeExpired}; the filter is then
+ *   rebuilt once enough of its bits belong to dropped entries.
+ * - Reads are lock-free; writes (revocations, sync, purge) are serialized on the index.
+ */
+final class RevocationIndex {
+
+    private static final char TOKEN = 't';
+    private static final char USER = 'u';
+
+    static final double FALSE_POSITIVE_RATE = 0.01;
+
+    // token id -> expiry (epoch millis)
+    private final Map<String, Long> tokens = new ConcurrentHashMap<>();
+
+    // email -> the latest user revocation
+    private final Map<String, UserEntry> users = new ConcurrentHashMap<>();
+
+    private final int minCapacity;
+    private volatile BloomFilter filter;
+
+    // entries dropped since the filter was built; their bits only add false positives
+    private int stale;
+
+    private final LongAdder falsePositives = new LongAdder();
+
+    RevocationIndex(int expectedEntries) {
+        this.minCapacity = Math.max(16, expectedEntries);
+        this.filter = new BloomFilter(minCapacity, FALSE_POSITIVE_RATE);
+    }
+
+    synchronized void add(Revocation revocation) {
+        long expiresAt = revocation.expiresAt().toEpochMilli();
+        char tag;
+        switch (revocation.kind()) {
+            case TOKEN -> {
+                tokens.merge(revocation.subject(), expiresAt, Math::max);
+                tag = TOKEN;
+            }
+            case USER -> {
+                users.merge(revocation.subject(), new UserEntry(revocation.revokedAt().toEpochMilli(), expiresAt),
+                        UserEntry::latest);
+                tag = USER;
+            }
+            default -> throw new IllegalArgumentException("Unknown revocation kind " + revocation.kind());
+        }
+
+        if (size() + stale > filter.capacity()) rebuild();
+        else filter.put(tag, revocation.subject());
+    }
+
+    /**
+     * @param tokenId         the token's jti, or null for tokens minted without one
+     * @param issuedAtMillis  the token's iat; {@link Long#MIN_VALUE} if it has none
+     */
+    boolean isRevoked(String tokenId, String username, long issuedAtMillis) {
+        BloomFilter f = filter;
+
+        if (tokenId != null && f.mightContain(TOKEN, tokenId)) {
+            if (tokens.containsKey(tokenId)) return true;
+            falsePositives.increment();
+        }
+        if (username != null && f.mightContain(USER, username)) {
+            UserEntry entry = users.get(username);
+            // iat has whole-second precision: a token from the same second as the revocation is refused too
+            if (entry != null) return issuedAtMillis <= entry.revokedAt();
+            falsePositives.increment();
+        }
+        return false;
+    }
+
+    synchronized void purgeExpired(long nowMillis) {
+        int before = size();
+        tokens.values().removeIf(expiresAt -> expiresAt <= nowMillis);
+        users.values().removeIf(entry -> entry.expiresAt() <= nowMillis);
+        stale += before - size();
+
+        boolean mostlyStale = stale * 4 >= filter.capacity();
+        boolean oversized = filter.capacity() > minCapacity && size() * 4 < filter.capacity();
+        if (mostlyStale || oversized) rebuild();
+    }
+
+    int size() {
+        return tokens.size() + users.size();
+    }
+
+    long falsePositives() {
+        return falsePositives.sum();
+    }
+
+    // callers hold the lock; the new filter is only published once it is complete
+    private void rebuild() {
+        BloomFilter next = new BloomFilter(Math.max(minCapacity, size() * 2), FALSE_POSITIVE_RATE);
+        tokens.keySet().forEach(id -> next.put(TOKEN, id));
+        users.keySet().forEach(email -> next.put(USER, email));
+        filter = next;
+        stale = 0;
+    }
+
+    private record UserEntry(long revokedAt, long expiresAt) {
+
+        static UserEntry latest(UserEntry a, UserEntry b) {
+            return (b.revokedAt() >= a.revokedAt()) ? b : a;
+        }
+    }
+}
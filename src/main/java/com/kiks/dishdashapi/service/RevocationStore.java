@@ -0,0 +1,28 @@
+package com.kiks.dishdashapi.service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Persistent log behind {@link TokenRevocationService}. Only written on revocation and read
+ * at startup and by the periodic sync; request handling never touches it.
+ */
+public interface RevocationStore {
+
+    void append(Revocation revocation);
+
+    /** Revocations recorded at or after {@code since} that are still in force at {@code now}. */
+    List<Revocation> loadSince(Instant since, Instant now);
+
+    /** Drops revocations that have expired by now. */
+    void purgeExpired(Instant now);
+
+    enum Kind { TOKEN, USER }
+
+    /**
+     * - TOKEN: {@code subject} is a token id (jti); refused until {@code expiresAt}, the token's own expiry.
+     * - USER: {@code subject} is an email; every token issued at or before {@code revokedAt} is refused.
+     *   {@code expiresAt} is one token lifetime later, when all of those have expired anyway.
+     */
+    record Revocation(Kind kind, String subject, Instant revokedAt, Instant expiresAt) {}
+}
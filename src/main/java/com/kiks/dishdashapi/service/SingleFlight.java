@@ -0,0 +1,85 @@
+package com.kiks.dishdashapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller runs the call on its own thread,
+ * callers arriving while it runs wait for it and get the same result or the same exception.
+ * Nothing is remembered afterwards; the next call after completion runs again.
+ * - The running call holds no lock, so a virtual thread blocking in it (JDBC, a hashing queue)
+ *   doesn't pin its carrier, and waiters park like on any future.
+ * - The entry is removed before waiters are released, whatever way the call ends, so a failure
+ *   never leaves waiters or a stale entry behind.
+ * Counts {@code <metric>{outcome=executed|coalesced}}.
+ */
+final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+
+    private final Counter executed;
+    private final Counter coalesced;
+
+    SingleFlight(MeterRegistry meterRegistry, String metric) {
+        this.executed = Counter.builder(metric)
+                .tag("outcome", "executed")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder(metric)
+                .tag("outcome", "coalesced")
+                .register(meterRegistry);
+    }
+
+    V execute(K key, Supplier<? extends V> call) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = flights.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+
+        executed.increment();
+        V result;
+        try {
+            result = call.get();
+        } catch (Throwable t) {
+            flights.remove(key, flight);
+            flight.completeExceptionally(t);
+            throw t;
+        }
+        flights.remove(key, flight);
+        flight.complete(result);
+        return result;
+    }
+
+    /**
+     * Lets the next call for {@code key} run again instead of joining the one in flight, e.g. after
+     * the data it reads changed. Callers already waiting still get the running call's result.
+     */
+    void forget(K key) {
+        flights.remove(key);
+    }
+
+    int inFlight() {
+        return flights.size();
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for a coalesced call");
+        } catch (ExecutionException e) {
+            // the caller that ran it threw this very exception
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
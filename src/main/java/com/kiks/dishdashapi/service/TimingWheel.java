@@ -0,0 +1,114 @@
+package com.kiks.dishdashapi.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Two-level hierarchical timing wheel (64 ticks, then 64 x 64 ticks, then an overflow list).
+ * Advancing only touches the slots that come due, so the cost follows the number of
+ * expiring items rather than the number of items held. The overflow list is scanned at a
+ * level-1 slot boundary only once its earliest item is within reach of level 1.
+ * <p>
+ * Not thread-safe; callers guard it with their own lock. Items fire at most one tick late,
+ * and callers are expected to re-check the real deadline (and re-schedule) when they fire.
+ */
+final class TimingWheel<E> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+
+    // one level-1 slot is kept free so an item never lands in the slot that was just cascaded
+    private static final long LEVEL1_SPAN = (long) (SLOTS - 1) * SLOTS;
+
+    private final long tickMillis;
+
+    private final List<Timer<E>>[] level0 = newSlots();
+    private final List<Timer<E>>[] level1 = newSlots();
+    private final List<Timer<E>> overflow = new ArrayList<>();
+    private long overflowMin = Long.MAX_VALUE;
+
+    private long currentTick;
+
+    TimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    void schedule(E item, long deadlineMillis) {
+        long tick = Math.max(-Math.floorDiv(-deadlineMillis, tickMillis), currentTick + 1);
+        place(new Timer<>(item, tick));
+    }
+
+    /** Fires every item whose tick has been reached by nowMillis. */
+    void advance(long nowMillis, Consumer<E> onExpired) {
+        long target = nowMillis / tickMillis;
+
+        while (currentTick < target) {
+            currentTick++;
+
+            if ((currentTick & MASK) == 0) {
+                // every level-1 slot, not every rotation: an item waiting a whole rotation would fire late
+                if (overflowMin - currentTick < LEVEL1_SPAN) drainOverflow();
+                cascade(level1[(int) ((currentTick >>> BITS) & MASK)]);
+            }
+
+            List<Timer<E>> due = level0[(int) (currentTick & MASK)];
+            if (due == null || due.isEmpty()) continue;
+
+            List<Timer<E>> fired = new ArrayList<>(due);
+            due.clear();
+            for (Timer<E> t : fired) onExpired.accept(t.item());
+        }
+    }
+
+    private void place(Timer<E> timer) {
+        long delta = timer.tick() - currentTick;
+        if (delta < SLOTS) {
+            slot(level0, timer.tick()).add(timer);
+        } else if (delta < LEVEL1_SPAN) {
+            slot(level1, timer.tick() >>> BITS).add(timer);
+        } else {
+            overflow.add(timer);
+            overflowMin = Math.min(overflowMin, timer.tick());
+        }
+    }
+
+    // moves what level 1 can now hold, keeps the rest
+    private void drainOverflow() {
+        List<Timer<E>> moved = new ArrayList<>();
+        overflowMin = Long.MAX_VALUE;
+        overflow.removeIf(t -> {
+            if (t.tick() - currentTick < LEVEL1_SPAN) {
+                moved.add(t);
+                return true;
+            }
+            overflowMin = Math.min(overflowMin, t.tick());
+            return false;
+        });
+        moved.forEach(this::place);
+    }
+
+    private void cascade(List<Timer<E>> slot) {
+        if (slot == null || slot.isEmpty()) return;
+
+        List<Timer<E>> moved = new ArrayList<>(slot);
+        slot.clear();
+        moved.forEach(this::place);
+    }
+
+    private static <E> List<Timer<E>> slot(List<Timer<E>>[] level, long index) {
+        int i = (int) (index & MASK);
+        if (level[i] == null) level[i] = new ArrayList<>();
+        return level[i];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> List<Timer<E>>[] newSlots() {
+        List<Timer<E>>[] slots = (List<Timer<E>>[]) new List<?>[SLOTS];
+        return slots;
+    }
+
+    private record Timer<E>(E item, long tick) {}
+}
@@ -0,0 +1,95 @@
+package com.kiks.dishdashapi.service;
+
+import com.kiks.dishdashapi.model.User;
+import com.kiks.dishdashapi.service.RevocationStore.Kind;
+import com.kiks.dishdashapi.service.RevocationStore.Revocation;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Revocation of access tokens before they expire, by token id (logout) or by user (disable, lock).
+ * - {@link #isRevoked} runs on every authenticated request against the in-memory
+ *   {@link RevocationIndex} only; it never queries the database.
+ * - Revocations are written to the {@link RevocationStore}, loaded back at startup, and every
+ *   {@code revocation.sync-interval} each node pulls what other nodes revoked since its last sync.
+ *   The pull re-reads {@code revocation.sync.lookback} of history, which absorbs clock skew between nodes.
+ * - Entries expire with the tokens they refuse, so the index only ever holds one token lifetime of revocations.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final RevocationStore store;
+    private final RevocationIndex index;
+    private final Duration syncLookback;
+
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    public TokenRevocationService(RevocationStore store,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${revocation.expected-entries:100000}") int expectedEntries,
+                                  @Value("${revocation.sync.lookback:PT30S}") Duration syncLookback) {
+        this.store = store;
+        this.index = new RevocationIndex(expectedEntries);
+        this.syncLookback = syncLookback;
+
+        Gauge.builder("auth.revocation.entries", index, RevocationIndex::size)
+                .register(meterRegistry);
+        FunctionCounter.builder("auth.revocation.false.positives", index, RevocationIndex::falsePositives)
+                .description("Bloom filter hits that the exact set did not confirm")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void load() {
+        Instant now = Instant.now();
+        List<Revocation> live = store.loadSince(Instant.EPOCH, now);
+        live.forEach(index::add);
+        lastSync = now;
+        log.info("Loaded {} token revocations", live.size());
+    }
+
+    public boolean isRevoked(JwtService.VerifiedClaims claims) {
+        long issuedAt = (claims.issuedAt() == null) ? Long.MIN_VALUE : claims.issuedAt().toEpochMilli();
+        return index.isRevoked(claims.tokenId(), claims.username(), issuedAt);
+    }
+
+    /** Refuses one token until it expires. */
+    public void revokeToken(String tokenId, Instant expiresAt) {
+        revoke(new Revocation(Kind.TOKEN, tokenId, Instant.now(), expiresAt));
+    }
+
+    /** Refuses every token the user was issued up to now. */
+    public void revokeUser(String email) {
+        Instant now = Instant.now();
+        revoke(new Revocation(Kind.USER, User.normalizeEmail(email), now, now.plus(JwtService.TOKEN_TTL)));
+    }
+
+    // Index first: this node refuses the token from now on even if the write below fails
+    private void revoke(Revocation revocation) {
+        index.add(revocation);
+        store.append(revocation);
+    }
+
+    @Scheduled(fixedDelayString = "${revocation.sync-interval:PT2S}")
+    public void sync() {
+        Instant now = Instant.now();
+        store.loadSince(lastSync.minus(syncLookback), now).forEach(index::add);
+        lastSync = now;
+
+        index.purgeExpired(now.toEpochMilli());
+        store.purgeExpired(now);
+    }
+}
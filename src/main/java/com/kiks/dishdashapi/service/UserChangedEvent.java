@@ -0,0 +1,7 @@
+package com.kiks.dishdashapi.service;
+
+/**
+ * Published after a user row is written (registration, password or verification change),
+ * so anything caching that user can drop it.
+ */
+public record UserChangedEvent(String email) {}
@@ -2,27 +2,154 @@ package com.kiks.dishdashapi.service;
 
 import com.kiks.dishdashapi.model.User;
 import com.kiks.dishdashapi.repo.UserRepository;
-import org.springframework.security.crypto.password4j.Argon2Password4jPasswordEncoder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+
 @Service
 public class UserService {
 
     private final UserRepository repo;
 
-    private final Argon2Password4jPasswordEncoder encoder = new Argon2Password4jPasswordEncoder();
+    private final PasswordEncoder encoder;
+
+    private final ApplicationEventPublisher events;
+
+    private final TokenRevocationService revocations;
+
+    private final RefreshTokenService refreshTokens;
+
+    private final EmailExistenceFilter emailFilter;
+
+    private final ReadYourWrites readYourWrites;
+
+    // auth.email.lookup{outcome=filtered} never reached the database;
+    // outcome=stale is a filter miss the primary found (registered on another node since the last sync)
+    private final Counter lookupFiltered;
+    private final Counter lookupFound;
+    private final Counter lookupNotFound;
+    private final Counter lookupStale;
 
-    public UserService(UserRepository repo) {
+    public UserService(UserRepository repo, BoundedPasswordEncoder encoder,
+                       ApplicationEventPublisher events,
+                       TokenRevocationService revocations, RefreshTokenService refreshTokens,
+                       EmailExistenceFilter emailFilter, ReadYourWrites readYourWrites,
+                       MeterRegistry meterRegistry) {
         this.repo = repo;
+        this.encoder = encoder;
+        this.events = events;
+        this.revocations = revocations;
+        this.refreshTokens = refreshTokens;
+        this.emailFilter = emailFilter;
+        this.readYourWrites = readYourWrites;
+
+        this.lookupFiltered = lookupCounter(meterRegistry, "filtered");
+        this.lookupFound = lookupCounter(meterRegistry, "found");
+        this.lookupNotFound = lookupCounter(meterRegistry, "not_found");
+        this.lookupStale = lookupCounter(meterRegistry, "stale");
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("auth.email.lookup")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
+    /**
+     * Duplicates are turned away before the Argon2 hash; the unique index still decides races.
+     * @throws EmailAlreadyRegisteredException if the email is taken
+     */
     public User saveUser(User user) {
+        String email = User.normalizeEmail(user.getEmail());
+        if (existByEmail(email)) throw new EmailAlreadyRegisteredException("Email already registered");
+
         user.setPassword(encoder.encode(user.getPassword()));
-        return repo.save(user);
+        User saved;
+        try {
+            saved = repo.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // lost a race with a concurrent registration, or some other constraint; a replica may not have the winner yet
+            if (email != null && readYourWrites.onPrimary(() -> repo.existsByEmail(email))) {
+                throw new EmailAlreadyRegisteredException("Email already registered", e);
+            }
+            throw e;
+        }
+
+        emailFilter.add(saved.getEmail());
+        events.publishEvent(new UserChangedEvent(saved.getEmail()));
+        return saved;
     }
 
+    /**
+     * A password change (reset or admin): stores the new hash and bumps the credential version,
+     * so access tokens issued before the change stop being accepted ({@link CredentialVersions}),
+     * and ends the user's refresh sessions.
+     * @return false if there is no user with that email
+     */
+    public boolean updatePassword(String email, String rawPassword) {
+        String normalized = User.normalizeEmail(email);
+        if (normalized == null) return false;
+
+        // a single UPDATE of password and credential_version: a concurrent status change is not overwritten
+        if (repo.changePassword(normalized, encoder.encode(rawPassword)) == 0) return false;
+
+        refreshTokens.revokeAll(normalized);
+        events.publishEvent(new UserChangedEvent(normalized));
+        return true;
+    }
+
+    /**
+     * Enables/disables or locks the account. Disabling or locking also revokes the user's
+     * access tokens and refresh sessions, so it takes effect on the next request, not at token expiry.
+     * @return false if there is no user with that email
+     */
+    public boolean updateAccountStatus(String email, boolean enabled, Instant lockedUntil) {
+        String normalized = User.normalizeEmail(email);
+        if (normalized == null) return false;
+
+        // a single UPDATE of enabled and locked_until: a concurrent password change is not overwritten
+        if (repo.updateAccountStatus(normalized, enabled, lockedUntil) == 0) return false;
+
+        if (!enabled || (lockedUntil != null && lockedUntil.isAfter(Instant.now()))) {
+            revocations.revokeUser(normalized);
+            refreshTokens.revokeAll(normalized);
+        }
+        events.publishEvent(new UserChangedEvent(normalized));
+        return true;
+    }
+
+    /** A definite miss in the {@link EmailExistenceFilter} skips the query. */
     public boolean existByEmail(String email) {
-        return repo.existsByEmail(email);
+        String normalized = User.normalizeEmail(email);
+        if (normalized == null) return false;
+
+        if (!emailFilter.mightExist(normalized)) {
+            lookupFiltered.increment();
+            return false;
+        }
+
+        boolean exists = readYourWrites.read(normalized, () -> repo.existsByEmail(normalized), Boolean::booleanValue);
+        (exists ? lookupFound : lookupNotFound).increment();
+        return exists;
+    }
+
+    /**
+     * Like {@link #existByEmail}, but a filter miss is checked on the primary: the filter can be a
+     * sync interval behind a registration taken by another node, and the answer must not be wrong then.
+     */
+    public boolean existByEmailConfirmed(String email) {
+        String normalized = User.normalizeEmail(email);
+        if (normalized == null) return false;
+        if (emailFilter.mightExist(normalized)) return existByEmail(normalized);
+
+        boolean exists = readYourWrites.onPrimary(() -> repo.existsByEmail(normalized));
+        (exists ? lookupStale : lookupNotFound).increment();
+        return exists;
     }
 
 
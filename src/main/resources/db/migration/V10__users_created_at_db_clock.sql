@@ -0,0 +1,13 @@
+-- created_at is stamped by the database clock, whatever the inserting node's clock says, so
+-- EmailExistenceFilter's sync cursor (also read from the database) is not off by clock skew.
+-- clock_timestamp() rather than now(): the row's insert time, not its transaction's start
+CREATE OR REPLACE FUNCTION users_stamp_created_at() RETURNS trigger AS $$
+BEGIN
+    NEW.created_at := clock_timestamp();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS users_created_at ON users;
+CREATE TRIGGER users_created_at BEFORE INSERT ON users
+    FOR EACH ROW EXECUTE FUNCTION users_stamp_created_at();
@@ -0,0 +1,14 @@
+-- Authorities behind UserPrincipal: USER for everyone, ADMIN for /admin/** and the actuator.
+-- There is no endpoint that grants ADMIN; an operator does, per user:
+--   UPDATE users SET role = 'ADMIN' WHERE email = '...';
+-- A change is picked up at the user's next login, or once auth.user-cache.ttl has passed.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS role VARCHAR(16) NOT NULL DEFAULT 'USER';
+ALTER TABLE users DROP CONSTRAINT IF EXISTS ck_users_role;
+ALTER TABLE users ADD CONSTRAINT ck_users_role CHECK (role IN ('USER', 'ADMIN'));
+
+-- The login projection (UserCredentials) carries the role too; rebuild the covering index
+-- so findCredentialsByEmail stays an index-only scan
+CREATE UNIQUE INDEX IF NOT EXISTS uk_users_email_role
+    ON users (email) INCLUDE (id, password, credential_version, enabled, locked_until, role);
+DROP INDEX IF EXISTS uk_users_email;
+ALTER INDEX uk_users_email_role RENAME TO uk_users_email;
@@ -0,0 +1,10 @@
+-- Same shape Hibernate's ddl-auto produced, so existing databases can be baselined onto it
+CREATE TABLE IF NOT EXISTS users (
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    full_name          VARCHAR(255) NOT NULL,
+    password           VARCHAR(255) NOT NULL,
+    email              VARCHAR(255) NOT NULL,
+    date_of_birth      DATE,
+    is_verified        BOOLEAN,
+    credential_version INTEGER
+);
@@ -0,0 +1,54 @@
+-- Emails are stored normalized from now on (see User.normalizeEmail). Accounts whose emails
+-- differ only by case or surrounding spaces would collide; which one to keep is not ours to
+-- decide, so list them and stop. The whole migration rolls back, nothing is changed.
+DO $$
+DECLARE
+    duplicates text;
+BEGIN
+    SELECT string_agg(format('%s (ids %s)', normalized, ids), '; ' ORDER BY normalized)
+      INTO duplicates
+      FROM (SELECT lower(trim(email)) AS normalized, string_agg(id::text, ', ' ORDER BY id) AS ids
+              FROM users
+             GROUP BY lower(trim(email))
+            HAVING count(*) > 1) d;
+
+    IF duplicates IS NOT NULL THEN
+        RAISE EXCEPTION 'users.email values that only differ by case or spaces: %. Merge or rename these accounts, then run the migration again', duplicates;
+    END IF;
+END $$;
+
+UPDATE users SET email = lower(trim(email)) WHERE email <> lower(trim(email));
+
+-- ...and the database refuses anything else, which makes the plain unique index below case-insensitive
+ALTER TABLE users ADD CONSTRAINT ck_users_email_normalized CHECK (email = lower(trim(email)));
+
+-- a database baselined from the original ddl-auto schema has no credential_version yet (V1 was skipped)
+ALTER TABLE users ADD COLUMN IF NOT EXISTS credential_version INTEGER;
+UPDATE users SET credential_version = 0 WHERE credential_version IS NULL;
+ALTER TABLE users ALTER COLUMN credential_version SET DEFAULT 0;
+ALTER TABLE users ALTER COLUMN credential_version SET NOT NULL;
+
+-- Drop the randomly named unique constraint ddl-auto put on email; replaced below
+DO $$
+DECLARE
+    c record;
+BEGIN
+    FOR c IN
+        SELECT con.conname
+          FROM pg_constraint con
+          JOIN pg_class rel ON rel.oid = con.conrelid
+          JOIN pg_attribute att ON att.attrelid = rel.oid AND att.attname = 'email'
+         WHERE rel.relname = 'users'
+           AND con.contype = 'u'
+           AND con.conkey = ARRAY[att.attnum]
+    LOOP
+        EXECUTE format('ALTER TABLE users DROP CONSTRAINT %I', c.conname);
+    END LOOP;
+END $$;
+
+-- Unique email lookup that also carries the login projection (UserCredentials),
+-- so findCredentialsByEmail is an index-only scan
+CREATE UNIQUE INDEX IF NOT EXISTS uk_users_email
+    ON users (email) INCLUDE (id, password, credential_version);
+
+CREATE INDEX IF NOT EXISTS idx_users_date_of_birth ON users (date_of_birth, id);
@@ -0,0 +1,18 @@
+-- Shared OTP store (otp.store=jdbc, see JdbcOtpStore); times are epoch millis
+CREATE TABLE IF NOT EXISTS otp_entries (
+    otp_key        VARCHAR(320) PRIMARY KEY,
+    otp            VARCHAR(16),
+    otp_expires_at BIGINT NOT NULL,
+    attempts_left  INT    NOT NULL,
+    cooldown_until BIGINT NOT NULL,
+    expires_at     BIGINT NOT NULL,
+    version        BIGINT NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_otp_entries_expires_at ON otp_entries (expires_at);
+
+CREATE TABLE IF NOT EXISTS otp_reset_tokens (
+    token      VARCHAR(64)  PRIMARY KEY,
+    otp_key    VARCHAR(320) NOT NULL,
+    expires_at BIGINT       NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_otp_reset_tokens_expires_at ON otp_reset_tokens (expires_at);
@@ -0,0 +1,7 @@
+-- Switch users.id from IDENTITY to a pooled sequence (allocationSize = 50 in User)
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+
+-- Hibernate's pooled optimizer hands out (value - 49 .. value), so start one block past the current max
+SELECT setval('users_seq', COALESCE((SELECT max(id) FROM users), 0) + 50);
@@ -0,0 +1,13 @@
+-- Rotating refresh tokens (refresh.store=jdbc, see JdbcRefreshTokenStore); times are epoch millis
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    token_hash         VARCHAR(64)  PRIMARY KEY,
+    family_id          VARCHAR(36)  NOT NULL,
+    email              VARCHAR(320) NOT NULL,
+    credential_version INT          NOT NULL,
+    expires_at         BIGINT       NOT NULL,
+    session_expires_at BIGINT       NOT NULL,
+    used               BOOLEAN      NOT NULL,
+    revoked            BOOLEAN      NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_family ON refresh_tokens (family_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expires_at ON refresh_tokens (expires_at);
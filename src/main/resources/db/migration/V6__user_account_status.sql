@@ -0,0 +1,10 @@
+-- Account status behind UserPrincipal.isEnabled / isAccountNonLocked
+ALTER TABLE users ADD COLUMN IF NOT EXISTS enabled BOOLEAN NOT NULL DEFAULT TRUE;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS locked_until TIMESTAMP WITH TIME ZONE;
+
+-- The login projection (UserCredentials) now carries the status too; rebuild the covering
+-- index so findCredentialsByEmail stays an index-only scan
+CREATE UNIQUE INDEX IF NOT EXISTS uk_users_email_status
+    ON users (email) INCLUDE (id, password, credential_version, enabled, locked_until);
+DROP INDEX IF EXISTS uk_users_email;
+ALTER INDEX uk_users_email_status RENAME TO uk_users_email;
@@ -0,0 +1,14 @@
+-- Access-token revocations (revocation.store=jdbc, see JdbcRevocationStore). Append-only:
+-- nodes load the live rows at startup and poll by revoked_at. Times are epoch millis
+CREATE TABLE IF NOT EXISTS token_revocations (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    kind       VARCHAR(8)   NOT NULL,
+    subject    VARCHAR(320) NOT NULL,
+    revoked_at BIGINT       NOT NULL,
+    expires_at BIGINT       NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_token_revocations_revoked_at ON token_revocations (revoked_at);
+CREATE INDEX IF NOT EXISTS idx_token_revocations_expires_at ON token_revocations (expires_at);
+
+-- Disabling a user ends their refresh sessions as well
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_email ON refresh_tokens (email);
@@ -0,0 +1,4 @@
+-- Registration time, so nodes can pick up each other's new users by range (EmailExistenceFilter).
+-- Existing rows get the migration time; they are covered by the full load at startup anyway
+ALTER TABLE users ADD COLUMN IF NOT EXISTS created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now();
+CREATE INDEX IF NOT EXISTS idx_users_created_at ON users (created_at);
@@ -0,0 +1,7 @@
+-- When and by which successor a refresh token was used, so a retry of the same refresh within
+-- refresh.reuse-grace gets that successor again instead of counting as reuse
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS used_at BIGINT;
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS replaced_by VARCHAR(64);
+
+-- revokeUser (password change, disabled account) looks tokens up by email
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_email ON refresh_tokens (email);
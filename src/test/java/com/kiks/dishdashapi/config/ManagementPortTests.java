@@ -0,0 +1,44 @@
+package com.kiks.dishdashapi.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Prometheus scrapes the actuator's own port without credentials; the application port
+ * doesn't serve the actuator at all then.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "management.server.port=0", "management.endpoints.web.exposure.include=health,prometheus"})
+class ManagementPortTests {
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int serverPort;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    private int status(int port, String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build();
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Test
+    void prometheusIsOpenOnlyOnTheManagementPort() throws Exception {
+        assertEquals(200, status(managementPort, "/actuator/prometheus"));
+        assertEquals(200, status(managementPort, "/actuator/health"));
+        // not mapped there; the error page an anonymous caller gets is refused as well
+        assertEquals(403, status(serverPort, "/actuator/prometheus"));
+    }
+}
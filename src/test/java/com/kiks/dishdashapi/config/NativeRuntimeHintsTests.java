@@ -0,0 +1,33 @@
+package com.kiks.dishdashapi.config;
+
+import com.kiks.dishdashapi.model.UserCredentials;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NativeRuntimeHintsTests {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    NativeRuntimeHintsTests() {
+        new NativeRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void everyJjwtTypeLoadedByNameIsOnTheClasspathAndRegistered() throws Exception {
+        for (String type : NativeRuntimeHints.JJWT_TYPES) {
+            // a rename in a jjwt upgrade would otherwise drop the hint silently
+            Class<?> cls = Class.forName(type);
+            assertTrue(RuntimeHintsPredicates.reflection().onType(cls).test(hints), type);
+        }
+    }
+
+    @Test
+    void serviceFilesAndProjectionsAreCovered() throws Exception {
+        assertTrue(RuntimeHintsPredicates.resource().forResource("META-INF/services/io.jsonwebtoken.io.Deserializer").test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("psw4j.properties").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onConstructorInvocation(UserCredentials.class.getConstructors()[0]).test(hints));
+    }
+}
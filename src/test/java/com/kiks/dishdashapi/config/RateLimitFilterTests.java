@@ -0,0 +1,118 @@
+package com.kiks.dishdashapi.config;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTests {
+
+    private static final RateLimitProperties.Limit TWO_PER_MINUTE = new RateLimitProperties.Limit(2, Duration.ofMinutes(1));
+
+    private final RateLimitFilter filter = new RateLimitFilter(new RateLimitProperties(true, 100, Duration.ofMinutes(1),
+            Map.of("login", new RateLimitProperties.Route("/auth/login", TWO_PER_MINUTE, TWO_PER_MINUTE),
+                    "register", new RateLimitProperties.Route("/auth/register", TWO_PER_MINUTE, null))),
+            JsonMapper.builder().build());
+
+    private static MockHttpServletRequest request(String path, String remoteAddr, String email) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        // the container decodes the URI and drops ;params for the servlet path; DispatcherServlet is mapped to /
+        request.setServletPath(path);
+        request.setRemoteAddr(remoteAddr);
+        request.setContentType("application/json");
+        request.setContent(("{\"email\":\"" + email + "\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private int status(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> {});
+        return response.getStatus();
+    }
+
+    @Test
+    void limitsArePerRouteAndPerClient() throws Exception {
+        assertEquals(200, status(request("/auth/login", "10.0.0.1", "a@x.com")));
+        assertEquals(200, status(request("/auth/login", "10.0.0.1", "b@x.com")));
+        assertEquals(429, status(request("/auth/login", "10.0.0.1", "c@x.com")));
+
+        // same address, other route: its own bucket
+        assertEquals(200, status(request("/auth/register", "10.0.0.1", "a@x.com")));
+        // same e-mail from elsewhere: the e-mail bucket still has a token left
+        assertEquals(200, status(request("/auth/login", "10.0.0.2", "A@x.com")));
+        assertEquals(429, status(request("/auth/login", "10.0.0.3", "a@x.com")));
+    }
+
+    @Test
+    void aRouteSpelledDifferentlyInTheUriIsStillLimited() throws Exception {
+        assertEquals(200, status(request("/auth/login", "10.0.0.1", "a@x.com")));
+
+        MockHttpServletRequest encoded = request("/auth/login", "10.0.0.1", "b@x.com");
+        encoded.setRequestURI("/auth/%6cogin");
+        assertEquals(200, status(encoded));
+
+        MockHttpServletRequest withParams = request("/auth/login", "10.0.0.1", "c@x.com");
+        withParams.setRequestURI("/auth/login;x=1");
+        assertEquals(429, status(withParams));
+    }
+
+    @Test
+    void anOversizedChunkedBodyIsPassedOnWhole() throws Exception {
+        byte[] body = new byte[100 * 1024];
+        Arrays.fill(body, (byte) 'x');
+        MockHttpServletRequest request = request("/auth/login", "10.0.0.1", "a@x.com");
+        request.setContent(body);
+        HttpServletRequest chunked = new HttpServletRequestWrapper(request) {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+
+        byte[][] seen = new byte[1][];
+        filter.doFilter(chunked, new MockHttpServletResponse(),
+                (req, res) -> seen[0] = ((HttpServletRequest) req).getInputStream().readAllBytes());
+
+        assertArrayEquals(body, seen[0]);
+    }
+
+    @Test
+    void theBufferedBodyCanBeReadAsynchronously() throws Exception {
+        List<String> events = new ArrayList<>();
+        filter.doFilter(request("/auth/login", "10.0.0.1", "a@x.com"), new MockHttpServletResponse(), (req, res) -> {
+            ServletInputStream in = ((HttpServletRequest) req).getInputStream();
+            in.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    events.add(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    events.add("done");
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    events.add("error");
+                }
+            });
+        });
+
+        assertEquals(List.of("{\"email\":\"a@x.com\"}", "done"), events);
+    }
+}
@@ -0,0 +1,80 @@
+package com.kiks.dishdashapi.controller;
+
+import com.kiks.dishdashapi.model.Role;
+import com.kiks.dishdashapi.model.User;
+import com.kiks.dishdashapi.repo.UserRepository;
+import com.kiks.dishdashapi.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * /admin/** needs the ADMIN authority, which comes from users.role and nothing else.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class AdminAccessTests {
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository repo;
+
+    @AfterEach
+    void cleanUp() {
+        repo.deleteAll();
+    }
+
+    @Test
+    void onlyAnAdminCanChangeAccountStatus() throws Exception {
+        userService.saveUser(user("plain@x.com", Role.USER));
+        userService.saveUser(user("admin@x.com", Role.ADMIN));
+        String body = "{\"email\":\"plain@x.com\",\"enabled\":true}";
+
+        mvc.perform(post("/admin/users/status").header("Authorization", "Bearer " + login("plain@x.com"))
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isForbidden());
+        mvc.perform(post("/admin/users/status").header("Authorization", "Bearer " + login("admin@x.com"))
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void registrationCannotPickARole() throws Exception {
+        mvc.perform(post("/auth/register").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fullName\":\"Eve\",\"email\":\"eve@x.com\",\"password\":\"Password1!\","
+                                + "\"dateOfBirth\":\"1990-01-01\",\"role\":\"ADMIN\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals(Role.USER, repo.findByEmail("eve@x.com").getRole());
+    }
+
+    private String login(String email) throws Exception {
+        return mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + email + "\",\"password\":\"Password1!\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private static User user(String email, Role role) {
+        User user = new User();
+        user.setFullName("Test User");
+        user.setEmail(email);
+        user.setPassword("Password1!");
+        user.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        user.setRole(role);
+        return user;
+    }
+}
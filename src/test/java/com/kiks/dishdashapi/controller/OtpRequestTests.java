@@ -0,0 +1,73 @@
+package com.kiks.dishdashapi.controller;
+
+import com.kiks.dishdashapi.model.User;
+import com.kiks.dishdashapi.repo.UserRepository;
+import com.kiks.dishdashapi.service.NotificationDispatcher;
+import com.kiks.dishdashapi.service.OtpService;
+import com.kiks.dishdashapi.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * No notification workers and a one-slot queue: the first code fills it, the next can't be sent.
+ */
+@SpringBootTest(properties = {"notification.workers=0", "notification.queue-capacity=1"})
+@AutoConfigureMockMvc
+class OtpRequestTests {
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private OtpService otpService;
+    @Autowired
+    private NotificationDispatcher notifications;
+    @Autowired
+    private UserRepository repo;
+
+    @AfterEach
+    void cleanUp() {
+        repo.deleteAll();
+    }
+
+    @Test
+    void aCodeThatCouldNotBeQueuedIsWithdrawn() throws Exception {
+        userService.saveUser(user("first@x.com"));
+        userService.saveUser(user("second@x.com"));
+
+        requestOtp("first@x.com").andExpect(status().isOk());
+        assertEquals(1, notifications.backlog());
+
+        requestOtp("second@x.com").andExpect(status().isServiceUnavailable());
+        // no cooldown left behind: a retry gets a fresh code rather than a 429
+        assertNotEquals(OtpService.NO_CODE, otpService.generateAndStoreOtp("second@x.com"));
+        assertEquals(OtpService.NO_CODE, otpService.generateAndStoreOtp("first@x.com"));
+    }
+
+    private ResultActions requestOtp(String email) throws Exception {
+        return mvc.perform(post("/auth/request-otp").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\"}"));
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setFullName("Test User");
+        user.setEmail(email);
+        user.setPassword("Password1!");
+        user.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
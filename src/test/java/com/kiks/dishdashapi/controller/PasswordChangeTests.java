@@ -0,0 +1,113 @@
+package com.kiks.dishdashapi.controller;
+
+import com.kiks.dishdashapi.model.User;
+import com.kiks.dishdashapi.repo.UserRepository;
+import com.kiks.dishdashapi.service.CredentialVersions;
+import com.kiks.dishdashapi.service.OtpService;
+import com.kiks.dishdashapi.service.ReadYourWrites;
+import com.kiks.dishdashapi.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Password changes go through UserService.updatePassword, which bumps the persisted credential
+ * version; access tokens minted before the change are refused from then on.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class PasswordChangeTests {
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private OtpService otpService;
+    @Autowired
+    private UserController userController;
+    @Autowired
+    private UserRepository repo;
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Test
+    void resetWithAnOtpRejectsOlderTokens() throws Exception {
+        userService.saveUser(user("reset@x.com", "OldPassword1!"));
+        String oldToken = login("reset@x.com", "OldPassword1!");
+        logout(oldToken, 200);
+
+        String before = login("reset@x.com", "OldPassword1!");
+        int code = otpService.generateAndStoreOtp("reset@x.com");
+        String resetToken = otpService.verifyOtpAndIssueResetToken("reset@x.com", OtpService.format(code));
+        mvc.perform(post("/auth/reset-password").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"Reset@x.com\",\"resetToken\":\"" + resetToken
+                                + "\",\"newPassword\":\"NewPassword1!\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals(1, repo.findCredentialVersionByEmail("reset@x.com").orElseThrow());
+        logout(before, 403);
+        mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"reset@x.com\",\"password\":\"OldPassword1!\"}"))
+                .andExpect(status().is4xxClientError());
+        logout(login("reset@x.com", "NewPassword1!"), 200);
+    }
+
+    @Test
+    void aResetTokenIsSingleUse() {
+        userService.saveUser(user("single@x.com", "OldPassword1!"));
+        int code = otpService.generateAndStoreOtp("single@x.com");
+        String resetToken = otpService.verifyOtpAndIssueResetToken("single@x.com", OtpService.format(code));
+
+        var request = new UserController.PasswordResetRequest("single@x.com", resetToken, "NewPassword1!");
+        assertEquals(200, userController.resetPassword(request).getStatusCode().value());
+        assertEquals(401, userController.resetPassword(request).getStatusCode().value());
+        assertEquals(1, repo.findCredentialVersionByEmail("single@x.com").orElseThrow());
+    }
+
+    @Test
+    void anotherNodeNoticesTheChangeWithinItsTtl() throws InterruptedException {
+        userService.saveUser(user("node@x.com", "OldPassword1!"));
+        CredentialVersions otherNode = new CredentialVersions(repo, readYourWrites, Duration.ofMillis(200), 100);
+        assertTrue(otherNode.isCurrent("node@x.com", 0));
+
+        assertTrue(userService.updatePassword("node@x.com", "NewPassword1!"));
+        assertFalse(userService.updatePassword("nobody@x.com", "NewPassword1!"));
+
+        Thread.sleep(300);
+        assertFalse(otherNode.isCurrent("node@x.com", 0));
+        assertTrue(otherNode.isCurrent("node@x.com", 1));
+        assertFalse(otherNode.isCurrent("nobody@x.com", 0));
+    }
+
+    private String login(String email, String password) throws Exception {
+        return mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private void logout(String accessToken, int expectedStatus) throws Exception {
+        mvc.perform(post("/auth/logout").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().is(expectedStatus));
+    }
+
+    private static User user(String email, String password) {
+        User user = new User();
+        user.setFullName("Test User");
+        user.setEmail(email);
+        user.setPassword(password);
+        user.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
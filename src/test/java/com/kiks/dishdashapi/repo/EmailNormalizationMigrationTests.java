@@ -0,0 +1,99 @@
+package com.kiks.dishdashapi.repo;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * V2 lower-cases every stored email. Runs the real migrations on PostgreSQL (they use
+ * PostgreSQL-only DDL), starting from V1 with rows written before normalization.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class EmailNormalizationMigrationTests {
+
+    @Container
+    private static final PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:16-alpine");
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        jdbc = new JdbcTemplate(dataSource);
+        flyway("1").clean();
+        flyway("1").migrate();
+    }
+
+    private Flyway flyway(String target) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .cleanDisabled(false)
+                .target(target)
+                .load();
+    }
+
+    private void insert(String email) {
+        jdbc.update("INSERT INTO users (full_name, password, email) VALUES ('Test User', 'x', ?)", email);
+    }
+
+    @Test
+    void emailsAreNormalized() {
+        insert("Solo@Example.com ");
+        insert("other@example.com");
+
+        flyway("latest").migrate();
+
+        assertEquals(List.of("other@example.com", "solo@example.com"),
+                jdbc.queryForList("SELECT email FROM users ORDER BY email", String.class));
+    }
+
+    @Test
+    void aDatabaseFromTheOriginalDdlAutoSchemaIsBaselinedAndMigrated() {
+        flyway("1").clean();
+        // what ddl-auto created before the migrations existed: no credential_version, no status columns
+        jdbc.execute("CREATE TABLE users (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "date_of_birth DATE, email VARCHAR(255) NOT NULL UNIQUE, full_name VARCHAR(255) NOT NULL, "
+                + "is_verified BOOLEAN, password VARCHAR(255) NOT NULL)");
+        jdbc.update("INSERT INTO users (full_name, password, email) VALUES ('Old User', 'x', 'Old@Example.com')");
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+
+        assertEquals(0, jdbc.queryForObject(
+                "SELECT credential_version FROM users WHERE email = 'old@example.com'", Integer.class));
+        // ids come from users_seq now (Hibernate's pooled optimizer), the rest from the new defaults
+        jdbc.update("INSERT INTO users (id, full_name, password, email) VALUES (nextval('users_seq'), 'New User', 'x', 'new@example.com')");
+        assertEquals(List.of("0 true", "0 true"), jdbc.queryForList(
+                "SELECT credential_version || ' ' || enabled FROM users ORDER BY id", String.class));
+    }
+
+    @Test
+    void mixedCaseDuplicatesStopTheMigrationAndAreReported() {
+        insert("Dup@Example.com");
+        insert(" dup@example.com");
+        insert("solo@Example.com");
+
+        FlywayException e = assertThrows(FlywayException.class, () -> flyway("latest").migrate());
+        assertTrue(e.getMessage().contains("dup@example.com (ids 1, 2)"), e.getMessage());
+
+        // rolled back as a whole: still at V1, nothing rewritten
+        assertEquals("1", flyway("latest").info().current().getVersion().getVersion());
+        assertEquals(List.of("Dup@Example.com", " dup@example.com", "solo@Example.com"),
+                jdbc.queryForList("SELECT email FROM users ORDER BY id", String.class));
+    }
+}
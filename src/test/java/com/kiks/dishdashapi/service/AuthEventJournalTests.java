@@ -0,0 +1,230 @@
+package com.kiks.dishdashapi.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthEventJournalTests {
+
+    @TempDir
+    Path dir;
+
+    private final MeterRegistry meters = new SimpleMeterRegistry();
+    private final List<AuthEventJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(AuthEventJournal::close);
+    }
+
+    private AuthEventJournal journal(long segmentBytes, int maxSegments) throws IOException {
+        AuthEventJournal journal = new AuthEventJournal(true, dir.toString(),
+                DataSize.ofBytes(segmentBytes), maxSegments, meters);
+        journal.open();
+        opened.add(journal);
+        return journal;
+    }
+
+    private List<AuthEvent> readAll() throws IOException {
+        List<AuthEvent> events = new ArrayList<>();
+        new AuthEventReader(dir).poll(events::add);
+        return events;
+    }
+
+    private double counted(String outcome) {
+        return meters.get("auth.journal.events").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    void eventsReadBackAsWritten() throws IOException {
+        AuthEventJournal journal = journal(DataSize.ofMegabytes(1).toBytes(), 4);
+        long before = System.currentTimeMillis();
+        journal.record(AuthEventType.LOGIN_FAILED, "a@x.com", AuthEventJournal.LOGIN_BAD_CREDENTIALS);
+        journal.record(AuthEventType.OTP_ISSUED, "zoë@例え.jp");
+        journal.record(AuthEventType.TOKEN_ISSUED, "😀@x.com", 1_700_000_000_000L);
+        journal.record(AuthEventType.LOGIN_SUCCEEDED, null);
+
+        List<AuthEvent> events = readAll();
+        assertEquals(4, events.size());
+        assertEquals(new AuthEvent(events.get(0).timestamp(), AuthEventType.LOGIN_FAILED, "a@x.com",
+                AuthEventJournal.LOGIN_BAD_CREDENTIALS), events.get(0));
+        assertEquals("zoë@例え.jp", events.get(1).subject());
+        assertEquals("😀@x.com", events.get(2).subject());
+        assertEquals(1_700_000_000_000L, events.get(2).detail());
+        assertEquals("", events.get(3).subject());
+        assertFalse(events.get(0).timestamp().toEpochMilli() < before);
+        assertEquals(4, counted("recorded"));
+    }
+
+    @Test
+    void longSubjectsAreCutAtAWholeCharacter() throws IOException {
+        AuthEventJournal journal = journal(DataSize.ofMegabytes(1).toBytes(), 4);
+        // 511 ASCII bytes, then a 2-byte character that no longer fits
+        journal.record(AuthEventType.OTP_REJECTED, "a".repeat(511) + "é" + "tail");
+
+        String subject = readAll().getFirst().subject();
+        assertEquals("a".repeat(511), subject);
+    }
+
+    @Test
+    void fullSegmentsRollAndOldOnesAreDeleted() throws IOException {
+        AuthEventJournal journal = journal(4096, 3);
+        int events = 1_000; // 32 bytes each, ~127 per segment
+        for (int i = 0; i < events; i++) journal.record(AuthEventType.OTP_ISSUED, "u" + i);
+
+        List<Path> segments = AuthEventJournal.segments(dir);
+        assertEquals(3, segments.size());
+        assertEquals(AuthEventJournal.fileName(7), segments.getLast().getFileName().toString());
+
+        // what is left is the newest events, contiguous and in order
+        List<AuthEvent> left = readAll();
+        assertFalse(left.isEmpty());
+        assertEquals("u" + (events - 1), left.getLast().subject());
+        int first = Integer.parseInt(left.getFirst().subject().substring(1));
+        for (int i = 0; i < left.size(); i++) assertEquals("u" + (first + i), left.get(i).subject());
+        assertEquals(events, counted("recorded"));
+    }
+
+    @Test
+    void concurrentWritersLoseNothingAndKeepTheirOwnOrder() throws Exception {
+        AuthEventJournal journal = journal(16 * 1024, 1_000);
+        int threads = 8, perThread = 2_000;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String subject = "writer" + t + "@x.com";
+            done.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) journal.record(AuthEventType.LOGIN_SUCCEEDED, subject, i);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : done) f.get();
+        pool.shutdown();
+
+        List<AuthEvent> events = readAll();
+        assertEquals(threads * perThread, events.size());
+        Map<String, Long> next = new HashMap<>();
+        for (AuthEvent event : events) {
+            long expected = next.getOrDefault(event.subject(), 0L);
+            assertEquals(expected, event.detail(), event.subject());
+            next.put(event.subject(), expected + 1);
+        }
+        assertEquals(threads, next.size());
+        assertEquals(0, counted("dropped"));
+    }
+
+    @Test
+    void readerTailsAppendsAcrossSegments() throws IOException {
+        AuthEventJournal journal = journal(4096, 100);
+        AuthEventReader reader = new AuthEventReader(dir);
+        List<AuthEvent> seen = new ArrayList<>();
+
+        assertEquals(0, reader.poll(seen::add));
+        journal.record(AuthEventType.OTP_ISSUED, "a@x.com");
+        assertEquals(1, reader.poll(seen::add));
+        assertEquals(0, reader.poll(seen::add));
+
+        for (int i = 0; i < 300; i++) journal.record(AuthEventType.OTP_VERIFIED, "b@x.com", i);
+        assertEquals(300, reader.poll(seen::add));
+        assertEquals(299, seen.getLast().detail());
+        assertTrue(AuthEventJournal.segments(dir).size() > 1);
+    }
+
+    @Test
+    void restartContinuesInANewSegment() throws IOException {
+        AuthEventJournal first = journal(DataSize.ofMegabytes(1).toBytes(), 4);
+        first.record(AuthEventType.LOGIN_FAILED, "a@x.com");
+        AuthEventReader tail = new AuthEventReader(dir);
+        tail.seekToEnd();
+        first.close();
+
+        AuthEventJournal second = journal(DataSize.ofMegabytes(1).toBytes(), 4);
+        second.record(AuthEventType.LOGIN_SUCCEEDED, "a@x.com");
+
+        assertEquals(2, AuthEventJournal.segments(dir).size());
+        assertEquals(List.of(AuthEventType.LOGIN_FAILED, AuthEventType.LOGIN_SUCCEEDED),
+                readAll().stream().map(AuthEvent::type).toList());
+        // a reader left at the end of the abandoned segment moves on to the new one
+        List<AuthEvent> seen = new ArrayList<>();
+        assertEquals(1, tail.poll(seen::add));
+        assertEquals(AuthEventType.LOGIN_SUCCEEDED, seen.getFirst().type());
+    }
+
+    @Test
+    void aRecordStillBeingWrittenIsWaitedForAfterARoll() throws IOException {
+        AuthEventJournal journal = journal(DataSize.ofMegabytes(1).toBytes(), 4);
+        journal.record(AuthEventType.OTP_ISSUED, "a@x.com");
+        journal.record(AuthEventType.OTP_VERIFIED, "a@x.com");
+        journal.close();
+
+        // the second record claimed but not yet published, and another writer already rolled over
+        MappedByteBuffer first = map(dir.resolve(AuthEventJournal.fileName(0)), 4096);
+        int second = AuthEventJournal.SEGMENT_HEADER + 32;
+        int length = (int) AuthEventJournal.INT.getAcquire(first, second);
+        AuthEventJournal.INT.setRelease(first, second, 0);
+        MappedByteBuffer next = map(dir.resolve(AuthEventJournal.fileName(1)), 4096);
+        next.putInt(4, AuthEventJournal.VERSION);
+        next.putLong(8, 1);
+        AuthEventJournal.INT.setRelease(next, 0, AuthEventJournal.MAGIC);
+
+        AuthEventReader reader = new AuthEventReader(dir);
+        List<AuthEvent> seen = new ArrayList<>();
+        assertEquals(1, reader.poll(seen::add));
+        assertEquals(0, reader.poll(seen::add));
+
+        // published, then the last writer out seals the segment
+        AuthEventJournal.INT.setRelease(first, second, length);
+        AuthEventJournal.INT.setRelease(first, AuthEventJournal.SEALED, 1);
+        assertEquals(1, reader.poll(seen::add));
+        assertEquals(AuthEventType.OTP_VERIFIED, seen.getLast().type());
+    }
+
+    private static MappedByteBuffer map(Path segment, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    @Test
+    void disabledOrClosedJournalIgnoresEvents() throws IOException {
+        AuthEventJournal disabled = new AuthEventJournal(false, dir.resolve("off").toString(),
+                DataSize.ofMegabytes(1), 4, meters);
+        disabled.open();
+        disabled.record(AuthEventType.LOGIN_SUCCEEDED, "a@x.com");
+        assertTrue(AuthEventJournal.segments(dir.resolve("off")).isEmpty());
+        assertEquals(0, counted("dropped"));
+
+        AuthEventJournal closed = journal(DataSize.ofMegabytes(1).toBytes(), 4);
+        closed.close();
+        closed.record(AuthEventType.LOGIN_SUCCEEDED, "a@x.com");
+        assertTrue(readAll().isEmpty());
+        assertEquals(1, counted("dropped"));
+    }
+}
@@ -0,0 +1,202 @@
+package com.kiks.dishdashapi.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A stand-in for Argon2 that counts verifications and holds each one until every login of
+ * the burst has arrived.
+ */
+class BoundedPasswordEncoderTests {
+
+    private static final int LOGINS = 64;
+
+    private final MeterRegistry meters = new SimpleMeterRegistry();
+    private final AtomicInteger verifications = new AtomicInteger();
+    private volatile RuntimeException failure;
+    private volatile double burstStart = Double.NaN;
+
+    private final PasswordEncoder slowEncoder = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return "{test}" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            verifications.incrementAndGet();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (coalesced() - burstStart < LOGINS - 1 && System.nanoTime() < deadline) Thread.yield();
+            if (failure != null) throw failure;
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    };
+
+    // one hashing thread and a queue too small for the burst: only coalescing gets them all through
+    private final BoundedPasswordEncoder encoder =
+            new BoundedPasswordEncoder(slowEncoder, meters, 1, 4, Duration.ofSeconds(10));
+
+    @AfterEach
+    void tearDown() {
+        encoder.shutdown();
+    }
+
+    private double coalesced() {
+        return meters.get("auth.hashing.matches.calls").tag("outcome", "coalesced").counter().count();
+    }
+
+    private List<Future<Boolean>> burst(ExecutorService pool, String password, String hash) {
+        burstStart = coalesced();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < LOGINS; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return encoder.matches(password, hash);
+            }));
+        }
+        start.countDown();
+        return results;
+    }
+
+    @Test
+    void identicalLoginsShareOneVerification() throws Exception {
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Future<Boolean> r : burst(pool, "secret", "{test}secret")) assertTrue(r.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, verifications.get());
+
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Future<Boolean> r : burst(pool, "wrong", "{test}secret")) assertFalse(r.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(2, verifications.get());
+        assertEquals(0, meters.get("auth.hashing.rejected").counter().count());
+    }
+
+    @Test
+    void differentPasswordsAreVerifiedSeparately() {
+        String hash = slowEncoder.encode("secret");
+        // sequential, so nothing coalesces and the stand-in doesn't wait
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("Secret", hash));
+        assertFalse(encoder.matches("secret", slowEncoder.encode("other")));
+        assertEquals(3, verifications.get());
+    }
+
+    @Test
+    void aFailedVerificationFailsEveryWaiter() throws Exception {
+        failure = new PasswordHashingRejectedException("Password hashing timed out", null);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Future<Boolean> r : burst(pool, "secret", "{test}secret")) {
+                Exception e = assertThrows(Exception.class, () -> r.get(10, TimeUnit.SECONDS));
+                assertSame(failure, e.getCause());
+            }
+        }
+        assertEquals(1, verifications.get());
+
+        // the next attempt verifies again
+        failure = null;
+        burstStart = Double.NaN;
+        assertTrue(encoder.matches("secret", "{test}secret"));
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void aTimedOutHashKeepsItsSlotUntilItFinishes() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder stuck = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                // like Argon2: doesn't stop when interrupted
+                while (true) {
+                    try {
+                        if (release.await(10, TimeUnit.SECONDS)) return "{stuck}" + rawPassword;
+                    } catch (InterruptedException ignored) {
+                        // keep hashing
+                    }
+                }
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return false;
+            }
+        };
+        MeterRegistry registry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder bounded = new BoundedPasswordEncoder(stuck, registry, 1, 1, Duration.ofMillis(100));
+        try {
+            // running, and abandoned by its caller
+            assertThrows(PasswordHashingRejectedException.class, () -> bounded.encode("a"));
+            assertEquals(1, registry.get("auth.hashing.admitted").gauge().value());
+
+            // queued behind it and dropped unstarted on timeout: its slot comes back right away
+            assertThrows(PasswordHashingRejectedException.class, () -> bounded.encode("b"));
+            assertEquals(1, registry.get("auth.hashing.admitted").gauge().value());
+
+            release.countDown();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (registry.get("auth.hashing.admitted").gauge().value() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, registry.get("auth.hashing.admitted").gauge().value());
+            assertEquals("{stuck}c", bounded.encode("c"));
+        } finally {
+            bounded.shutdown();
+        }
+    }
+
+    @Test
+    void admissionIsBoundedByRunningPlusQueued() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "{blocking}" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return false;
+            }
+        };
+        MeterRegistry registry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder bounded = new BoundedPasswordEncoder(blocking, registry, 1, 1, Duration.ofSeconds(10));
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> running = callers.submit(() -> bounded.encode("a"));
+            Future<String> queued = callers.submit(() -> bounded.encode("b"));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (registry.get("auth.hashing.admitted").gauge().value() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertThrows(PasswordHashingRejectedException.class, () -> bounded.encode("c"));
+            assertEquals(1, registry.get("auth.hashing.rejected").counter().count());
+
+            release.countDown();
+            assertEquals("{blocking}a", running.get(10, TimeUnit.SECONDS));
+            assertEquals("{blocking}b", queued.get(10, TimeUnit.SECONDS));
+        } finally {
+            bounded.shutdown();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.kiks.dishdashapi.service;
+
+import com.kiks.dishdashapi.model.User;
+import com.kiks.dishdashapi.repo.UserRepository;
+import com.kiks.dishdashapi.service.BulkImportService.Format;
+import com.kiks.dishdashapi.service.BulkImportService.ImportReport;
+import com.kiks.dishdashapi.service.BulkImportService.RowError;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "bulk-import.chunk-size=3")
+@RecordApplicationEvents
+class BulkImportServiceTests {
+
+    @Autowired
+    private BulkImportService importService;
+
+    @Autowired
+    private UserRepository repo;
+
+    @Autowired
+    private BoundedPasswordEncoder encoder;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @AfterEach
+    void cleanUp() {
+        repo.deleteAll();
+    }
+
+    @Test
+    void importsNdjsonAcrossChunksWithHashedPasswords() throws IOException {
+        ImportReport report = importService.importUsers(body("""
+                {"fullName":"A","email":"A@Example.com","password":"pw-a","dateOfBirth":"1990-01-02"}
+                {"fullName":"B","email":"b@example.com","password":"pw-b"}
+                {"fullName":"C","email":"c@example.com","password":"pw-c"}
+
+                {"fullName":"D","email":"d@example.com","password":"pw-d"}
+                """), Format.NDJSON);
+
+        assertEquals(4, report.rows());
+        assertEquals(4, report.imported());
+        assertEquals(0, report.failed());
+
+        User a = repo.findByEmail("a@example.com");
+        assertEquals(LocalDate.of(1990, 1, 2), a.getDateOfBirth());
+        assertTrue(encoder.matches("pw-a", a.getPassword()));
+    }
+
+    @Test
+    void badRowsAreReportedAndTheRestImported() throws IOException {
+        importService.importUsers(body("""
+                {"fullName":"Old","email":"taken@example.com","password":"pw"}
+                """), Format.NDJSON);
+
+        ImportReport report = importService.importUsers(body("""
+                {"fullName":"A","email":"a@example.com","password":"pw"}
+                not json
+                {"fullName":"B","email":"no-at-sign","password":"pw"}
+                {"fullName":"C","email":"c@example.com"}
+                {"fullName":"T","email":"TAKEN@example.com","password":"pw"}
+                {"fullName":"A2","email":"a@example.com","password":"pw"}
+                {"fullName":"E","email":"e@example.com","password":"pw"}
+                """), Format.NDJSON);
+
+        assertEquals(7, report.rows());
+        assertEquals(2, report.imported());
+        assertEquals(5, report.failed());
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L), report.errors().stream().map(RowError::line).sorted().toList());
+        assertTrue(repo.existsByEmail("e@example.com"));
+    }
+
+    @Test
+    void aDuplicateInALaterChunkIsAnExistingEmail() throws IOException {
+        ImportReport report = importService.importUsers(body("""
+                {"fullName":"A","email":"a@example.com","password":"pw"}
+                {"fullName":"B","email":"b@example.com","password":"pw"}
+                {"fullName":"C","email":"c@example.com","password":"pw"}
+                {"fullName":"A2","email":"A@example.com","password":"pw"}
+                """), Format.NDJSON);
+
+        assertEquals(3, report.imported());
+        assertEquals(List.of(new RowError(4, "a@example.com", "email already exists")), report.errors());
+    }
+
+    @Test
+    void importedUsersAreAnnouncedLikeRegistrations() throws IOException {
+        importService.importUsers(body("""
+                {"fullName":"A","email":"A@example.com","password":"pw"}
+                {"fullName":"B","email":"b@example.com","password":"pw"}
+                """), Format.NDJSON);
+
+        assertEquals(List.of(new UserChangedEvent("a@example.com"), new UserChangedEvent("b@example.com")),
+                events.stream(UserChangedEvent.class).toList());
+    }
+
+    @Test
+    void rowsWithoutANameAreRejected() throws IOException {
+        ImportReport report = importService.importUsers(body("""
+                {"email":"missing@example.com","password":"pw"}
+                {"fullName":"  ","email":"blank@example.com","password":"pw"}
+                {"fullName":"N","email":"named@example.com","password":"pw"}
+                """), Format.NDJSON);
+
+        assertEquals(1, report.imported());
+        assertEquals(List.of(new RowError(1, "missing@example.com", "fullName is required"),
+                new RowError(2, "blank@example.com", "fullName is required")), report.errors());
+    }
+
+    @Test
+    void aRowFailingOnItsOwnIsNotReportedAsADuplicate() throws IOException {
+        // too long for the column: fails the chunk, then its own retry, for a reason other than the email
+        ImportReport report = importService.importUsers(body("""
+                {"fullName":"A","email":"a@example.com","password":"pw"}
+                {"fullName":"%s","email":"long@example.com","password":"pw"}
+                {"fullName":"C","email":"c@example.com","password":"pw"}
+                """.formatted("x".repeat(300))), Format.NDJSON);
+
+        assertEquals(2, report.imported());
+        assertEquals(List.of(new RowError(2, "long@example.com", "insert failed")), report.errors());
+    }
+
+    @Test
+    void importsCsvWithQuotedFields() throws IOException {
+        ImportReport report = importService.importUsers(body("""
+                email,fullName,password,dateOfBirth
+                x@example.com,"Doe, Jane","p""w",1985-05-06
+                y@example.com,Bob,pw,not-a-date
+                """), Format.CSV);
+
+        assertEquals(1, report.imported());
+        assertEquals(new RowError(3, null, "invalid dateOfBirth"), report.errors().getFirst());
+
+        User x = repo.findByEmail("x@example.com");
+        assertEquals("Doe, Jane", x.getFullName());
+        assertTrue(encoder.matches("p\"w", x.getPassword()));
+    }
+
+    private static ByteArrayInputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
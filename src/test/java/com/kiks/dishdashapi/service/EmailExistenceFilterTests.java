@@ -0,0 +1,110 @@
+package com.kiks.dishdashapi.service;
+
+import com.kiks.dishdashapi.model.User;
+import com.kiks.dishdashapi.repo.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class EmailExistenceFilterTests {
+
+    @Autowired
+    private EmailExistenceFilter filter;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private BulkImportService importService;
+
+    @Autowired
+    private UserRepository repo;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void cleanUp() {
+        repo.deleteAll();
+    }
+
+    @Test
+    void unknownEmailsSkipTheDatabase() {
+        assertTrue(filter.isReady());
+        userService.saveUser(user("Known@Example.com"));
+
+        double filtered = lookups("filtered");
+        assertTrue(userService.existByEmail("known@example.com"));
+        assertFalse(userService.existByEmail("nobody-" + System.nanoTime() + "@example.com"));
+        assertEquals(filtered + 1, lookups("filtered"));
+    }
+
+    @Test
+    void bulkImportedEmailsAreAdded() throws IOException {
+        importService.importUsers(new ByteArrayInputStream("""
+                {"fullName":"A","email":"imported@example.com","password":"pw"}
+                """.getBytes(StandardCharsets.UTF_8)), BulkImportService.Format.NDJSON);
+
+        assertTrue(filter.mightExist("imported@example.com"));
+    }
+
+    @Test
+    void usersAddedByAnotherNodeArePickedUpBySync() {
+        // straight to the table, as another replica's registration would be
+        User other = user("elsewhere@example.com");
+        other.setPassword("hash");
+        repo.save(other);
+
+        filter.sync();
+        assertTrue(filter.mightExist("elsewhere@example.com"));
+    }
+
+    @Test
+    void aMissIsConfirmedWhereItMustBe() {
+        // registered by another node since the last sync
+        User other = user("unsynced@example.com");
+        other.setPassword("hash");
+        repo.save(other);
+
+        assertFalse(userService.existByEmail("unsynced@example.com"));
+        double stale = lookups("stale");
+        assertTrue(userService.existByEmailConfirmed("unsynced@example.com"));
+        assertEquals(stale + 1, lookups("stale"));
+        assertFalse(userService.existByEmailConfirmed("nobody-" + System.nanoTime() + "@example.com"));
+    }
+
+    @Test
+    void rebuildKeepsEveryEmail() {
+        userService.saveUser(user("a@example.com"));
+        filter.rebuild();
+        assertTrue(filter.mightExist("a@example.com"));
+    }
+
+    @Test
+    void duplicateRegistrationIsRefusedBeforeHashing() {
+        userService.saveUser(user("dup@example.com"));
+        assertThrows(EmailAlreadyRegisteredException.class, () -> userService.saveUser(user(" DUP@example.com")));
+        assertEquals(1, repo.count());
+    }
+
+    private double lookups(String outcome) {
+        return meterRegistry.get("auth.email.lookup").tag("outcome", outcome).counter().count();
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setFullName("Test");
+        user.setEmail(email);
+        user.setPassword("pw");
+        return user;
+    }
+}
@@ -0,0 +1,116 @@
+package com.kiks.dishdashapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryOtpStoreTests {
+
+    private final InMemoryOtpStore store = new InMemoryOtpStore(4);
+
+    @Test
+    void cooldownBlocksReissue() {
+        Instant now = Instant.now();
+        assertTrue(store.issueOtp("k", 123456, now.plusSeconds(60).toEpochMilli(), 5, now.plusSeconds(60).toEpochMilli(), now.toEpochMilli()));
+        assertFalse(store.issueOtp("k", 654321, now.plusSeconds(70).toEpochMilli(), 5, now.plusSeconds(70).toEpochMilli(), now.plusSeconds(10).toEpochMilli()));
+        assertEquals(now.plusSeconds(60).toEpochMilli(), store.cooldownUntil("k").toEpochMilli());
+    }
+
+    @Test
+    void withdrawnOtpFreesTheCooldown() {
+        Instant now = Instant.now();
+        long later = now.plusSeconds(60).toEpochMilli();
+        store.issueOtp("k", 123456, later, 5, later, now.toEpochMilli());
+
+        store.withdrawOtp("k", 654321);
+        assertFalse(store.issueOtp("k", 111111, later, 5, later, now.toEpochMilli()));
+
+        store.withdrawOtp("k", 123456);
+        assertEquals(Instant.EPOCH, store.cooldownUntil("k"));
+        assertFalse(store.consumeOtp("k", 123456, now.toEpochMilli()));
+        assertTrue(store.issueOtp("k", 111111, later, 5, later, now.toEpochMilli()));
+        assertTrue(store.consumeOtp("k", 111111, now.toEpochMilli()));
+    }
+
+    @Test
+    void otpIsOneTimeAndAttemptsRunOut() {
+        Instant now = Instant.now();
+        store.issueOtp("a", 111111, now.plusSeconds(60).toEpochMilli(), 2, now.plusSeconds(60).toEpochMilli(), now.toEpochMilli());
+        assertTrue(store.consumeOtp("a", 111111, now.toEpochMilli()));
+        assertFalse(store.consumeOtp("a", 111111, now.toEpochMilli()));
+
+        store.issueOtp("b", 222222, now.plusSeconds(60).toEpochMilli(), 2, now.plusSeconds(60).toEpochMilli(), now.toEpochMilli());
+        assertFalse(store.consumeOtp("b", 0, now.toEpochMilli()));
+        assertFalse(store.consumeOtp("b", 0, now.toEpochMilli()));
+        assertFalse(store.consumeOtp("b", 222222, now.toEpochMilli()));
+    }
+
+    @Test
+    void expiredOtpIsRejected() {
+        Instant now = Instant.now();
+        store.issueOtp("k", 123456, now.plusSeconds(60).toEpochMilli(), 5, now.plusSeconds(60).toEpochMilli(), now.toEpochMilli());
+        assertFalse(store.consumeOtp("k", 123456, now.plusSeconds(61).toEpochMilli()));
+    }
+
+    @Test
+    void resetTokenIsOneTimeAndBoundToKey() {
+        Instant now = Instant.now();
+        store.storeResetToken("t", "k", now.plusSeconds(600));
+        assertFalse(store.consumeResetToken("t", "other", now));
+        assertTrue(store.consumeResetToken("t", "k", now));
+        assertFalse(store.consumeResetToken("t", "k", now));
+    }
+
+    @Test
+    void purgeDropsOnlyDueEntries() {
+        Instant now = Instant.now();
+        for (int i = 0; i < 1_000; i++) {
+            store.issueOtp("otp:" + i, 123456, now.plusSeconds(60).toEpochMilli(), 5, now.plusSeconds(60).toEpochMilli(), now.toEpochMilli());
+        }
+        store.storeResetToken("t", "k", now.plus(Duration.ofMinutes(10)));
+        // beyond the first wheel level and the overflow boundary
+        store.storeResetToken("far", "k", now.plus(Duration.ofHours(3)));
+        assertEquals(1_002, store.size());
+
+        store.purgeExpired(now.plusSeconds(30));
+        assertEquals(1_002, store.size());
+
+        store.purgeExpired(now.plusSeconds(62));
+        assertEquals(2, store.size());
+
+        store.purgeExpired(now.plus(Duration.ofMinutes(11)));
+        assertEquals(1, store.size());
+
+        store.purgeExpired(now.plus(Duration.ofHours(3)).plusSeconds(2));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void entriesAlreadyDueGoOnTheNextTick() {
+        Instant now = Instant.now();
+        long past = now.minusSeconds(60).toEpochMilli();
+        store.issueOtp("old", 123456, past, 5, past, now.minusSeconds(120).toEpochMilli());
+
+        // scheduled for the tick after now, not in the past
+        store.purgeExpired(now);
+        assertEquals(1, store.size());
+
+        store.purgeExpired(now.plusSeconds(2));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void reissueAfterCooldownExtendsLifetime() {
+        Instant now = Instant.now();
+        store.issueOtp("k", 111111, now.plusSeconds(60).toEpochMilli(), 5, now.plusSeconds(60).toEpochMilli(), now.toEpochMilli());
+        Instant later = now.plusSeconds(61);
+        assertTrue(store.issueOtp("k", 222222, later.plusSeconds(60).toEpochMilli(), 5, later.plusSeconds(60).toEpochMilli(), later.toEpochMilli()));
+
+        store.purgeExpired(now.plusSeconds(65));
+        assertEquals(1, store.size());
+        assertTrue(store.consumeOtp("k", 222222, now.plusSeconds(66).toEpochMilli()));
+    }
+}
@@ -0,0 +1,153 @@
+package com.kiks.dishdashapi.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the shared store against an in-memory H2 in PostgreSQL mode; two store instances
+ * on one database stand in for two replicas.
+ */
+class JdbcOtpStoreTests {
+
+    private JdbcTemplate jdbc;
+    private JdbcOtpStore nodeA;
+    private JdbcOtpStore nodeB;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource ds = new DriverManagerDataSource(
+                "jdbc:h2:mem:otp-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(ds);
+        nodeA = new JdbcOtpStore(jdbc, true, 100, 2, Duration.ZERO);
+        nodeB = new JdbcOtpStore(jdbc, true, 100, 2, Duration.ZERO);
+        nodeA.initSchema();
+        nodeB.initSchema();
+    }
+
+    @Test
+    void otpIssuedOnOneNodeVerifiesOnAnother() {
+        Instant now = Instant.now();
+        assertTrue(nodeA.issueOtp("k", 123456, now.plusSeconds(60).toEpochMilli(), 5, now.plusSeconds(60).toEpochMilli(), now.toEpochMilli()));
+        assertTrue(nodeB.consumeOtp("k", 123456, now.toEpochMilli()));
+        assertFalse(nodeA.consumeOtp("k", 123456, now.toEpochMilli()));
+    }
+
+    @Test
+    void cooldownHoldsAcrossNodes() {
+        Instant now = Instant.now();
+        assertTrue(nodeA.issueOtp("k", 123456, now.plusSeconds(60).toEpochMilli(), 5, now.plusSeconds(60).toEpochMilli(), now.toEpochMilli()));
+        assertFalse(nodeB.issueOtp("k", 654321, now.plusSeconds(70).toEpochMilli(), 5, now.plusSeconds(70).toEpochMilli(), now.plusSeconds(10).toEpochMilli()));
+        assertEquals(now.plusSeconds(60).toEpochMilli(), nodeB.cooldownUntil("k").toEpochMilli());
+
+        Instant later = now.plusSeconds(61);
+        assertTrue(nodeB.issueOtp("k", 654321, later.plusSeconds(60).toEpochMilli(), 5, later.plusSeconds(60).toEpochMilli(), later.toEpochMilli()));
+        assertTrue(nodeA.consumeOtp("k", 654321, later.toEpochMilli()));
+    }
+
+    @Test
+    void withdrawnOtpFreesTheCooldown() {
+        Instant now = Instant.now();
+        long later = now.plusSeconds(60).toEpochMilli();
+        assertTrue(nodeA.issueOtp("k", 123456, later, 5, later, now.toEpochMilli()));
+
+        nodeA.withdrawOtp("k", 654321);
+        assertFalse(nodeA.issueOtp("k", 111111, later, 5, later, now.toEpochMilli()));
+
+        nodeA.withdrawOtp("k", 123456);
+        assertFalse(nodeB.consumeOtp("k", 123456, now.toEpochMilli()));
+        assertTrue(nodeA.issueOtp("k", 111111, later, 5, later, now.toEpochMilli()));
+        assertTrue(nodeB.consumeOtp("k", 111111, now.toEpochMilli()));
+    }
+
+    @Test
+    void concurrentIssueOnlyOneWins() throws Exception {
+        Instant now = Instant.now();
+        List<Callable<Boolean>> calls = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            JdbcOtpStore node = (i % 2 == 0) ? nodeA : nodeB;
+            calls.add(() -> node.issueOtp("k", 123456, now.plusSeconds(60).toEpochMilli(), 5, now.plusSeconds(60).toEpochMilli(), now.toEpochMilli()));
+        }
+        assertEquals(1, countTrue(calls));
+    }
+
+    @Test
+    void concurrentWrongAttemptsAreAllCounted() throws Exception {
+        Instant now = Instant.now();
+        nodeA.issueOtp("k", 123456, now.plusSeconds(60).toEpochMilli(), 5, now.plusSeconds(60).toEpochMilli(), now.toEpochMilli());
+
+        List<Callable<Boolean>> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            JdbcOtpStore node = (i % 2 == 0) ? nodeA : nodeB;
+            calls.add(() -> node.consumeOtp("k", 0, now.toEpochMilli()));
+        }
+        assertEquals(0, countTrue(calls));
+
+        Integer left = jdbc.queryForObject("SELECT attempts_left FROM otp_entries WHERE otp_key = 'k'", Integer.class);
+        assertEquals(1, left);
+        assertTrue(nodeB.consumeOtp("k", 123456, now.toEpochMilli()));
+    }
+
+    @Test
+    void correctOtpRedeemedOnce() throws Exception {
+        Instant now = Instant.now();
+        nodeA.issueOtp("k", 123456, now.plusSeconds(60).toEpochMilli(), 5, now.plusSeconds(60).toEpochMilli(), now.toEpochMilli());
+
+        List<Callable<Boolean>> calls = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            JdbcOtpStore node = (i % 2 == 0) ? nodeA : nodeB;
+            calls.add(() -> node.consumeOtp("k", 123456, now.toEpochMilli()));
+        }
+        assertEquals(1, countTrue(calls));
+    }
+
+    @Test
+    void resetTokenIsOneTimeAndBoundToKey() {
+        Instant now = Instant.now();
+        nodeA.storeResetToken("t", "k", now.plusSeconds(600));
+        assertFalse(nodeB.consumeResetToken("t", "other", now));
+        assertTrue(nodeB.consumeResetToken("t", "k", now));
+        assertFalse(nodeA.consumeResetToken("t", "k", now));
+
+        nodeA.storeResetToken("old", "k", now.minusSeconds(1));
+        assertFalse(nodeA.consumeResetToken("old", "k", now));
+    }
+
+    @Test
+    void purgeDeletesExpiredRowsInBatches() {
+        Instant now = Instant.now();
+        for (int i = 0; i < 5; i++) {
+            nodeA.issueOtp("old:" + i, 123456, now.minusSeconds(120).toEpochMilli(), 5, now.minusSeconds(60).toEpochMilli(), now.minusSeconds(180).toEpochMilli());
+            nodeA.storeResetToken("old:" + i, "k", now.minusSeconds(1));
+        }
+        nodeA.issueOtp("live", 123456, now.plusSeconds(60).toEpochMilli(), 5, now.plusSeconds(60).toEpochMilli(), now.toEpochMilli());
+        assertEquals(11, nodeA.size());
+
+        nodeB.purgeExpired(now);
+        assertEquals(1, nodeA.size());
+    }
+
+    private static int countTrue(List<Callable<Boolean>> calls) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(calls.size());
+        try {
+            AtomicInteger wins = new AtomicInteger();
+            for (Future<Boolean> f : pool.invokeAll(calls)) {
+                if (f.get()) wins.incrementAndGet();
+            }
+            return wins.get();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.kiks.dishdashapi.service;
+
+import com.kiks.dishdashapi.service.RefreshTokenStore.Outcome;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two store instances on one in-memory H2 database stand in for two replicas.
+ */
+class JdbcRefreshTokenStoreTests {
+
+    private JdbcRefreshTokenStore nodeA;
+    private JdbcRefreshTokenStore nodeB;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource ds = new DriverManagerDataSource(
+                "jdbc:h2:mem:refresh-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        nodeA = new JdbcRefreshTokenStore(jdbc, true);
+        nodeB = new JdbcRefreshTokenStore(jdbc, true);
+        nodeA.initSchema();
+        nodeB.initSchema();
+    }
+
+    @Test
+    void rotationOnOneNodeIsSeenByAnother() {
+        Instant now = Instant.now();
+        nodeA.save(token("t1", "fam", now));
+
+        assertEquals(Outcome.ROTATED, nodeA.rotate("t1", "t2", now.plus(Duration.ofDays(1)), now).outcome());
+        assertEquals(Outcome.ROTATED, nodeB.rotate("t2", "t3", now.plus(Duration.ofDays(1)), now).outcome());
+        assertEquals(Outcome.REUSED, nodeB.rotate("t1", "t4", now.plus(Duration.ofDays(1)), now).outcome());
+        // reuse revoked the family, including the live t3
+        assertEquals(Outcome.INVALID, nodeA.rotate("t3", "t5", now.plus(Duration.ofDays(1)), now).outcome());
+    }
+
+    @Test
+    void aRetryOnAnotherNodeWithinTheGraceIsNotReuse() {
+        Instant now = Instant.now();
+        Duration grace = Duration.ofSeconds(10);
+        nodeA.save(token("t1", "fam", now));
+
+        assertEquals(Outcome.ROTATED, nodeA.rotate("t1", "t2", now.plus(Duration.ofDays(1)), now, grace).outcome());
+        assertEquals(Outcome.RETRIED, nodeB.rotate("t1", "t2", now.plus(Duration.ofDays(1)), now.plusSeconds(1), grace).outcome());
+        // the successor was stored once and is still live
+        assertEquals(2, nodeA.size());
+        assertEquals(Outcome.ROTATED, nodeB.rotate("t2", "t3", now.plus(Duration.ofDays(1)), now, grace).outcome());
+
+        // a different successor, or the same one too late, is reuse
+        nodeA.save(token("u1", "fam2", now));
+        nodeA.rotate("u1", "u2", now.plus(Duration.ofDays(1)), now, grace);
+        assertEquals(Outcome.REUSED, nodeB.rotate("u1", "u9", now.plus(Duration.ofDays(1)), now, grace).outcome());
+        nodeA.save(token("v1", "fam3", now));
+        nodeA.rotate("v1", "v2", now.plus(Duration.ofDays(1)), now, grace);
+        assertEquals(Outcome.REUSED, nodeB.rotate("v1", "v2", now.plus(Duration.ofDays(1)), now.plus(grace), grace).outcome());
+    }
+
+    @Test
+    void successorExpiryIsCappedBySession() {
+        Instant now = Instant.now();
+        nodeA.save(token("t1", "fam", now));
+
+        RefreshToken previous = nodeA.rotate("t1", "t2", now.plus(Duration.ofDays(365)), now).previous();
+        assertEquals(Outcome.INVALID, nodeA.rotate("t2", "t3", now, previous.sessionExpiresAt().plusSeconds(1)).outcome());
+    }
+
+    @Test
+    void concurrentRotationsOfOneTokenHaveOneWinner() throws Exception {
+        Instant now = Instant.now();
+        nodeA.save(token("t1", "fam", now));
+
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Outcome>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            JdbcRefreshTokenStore node = (i % 2 == 0) ? nodeA : nodeB;
+            String next = "n" + i;
+            results.add(pool.submit(() -> {
+                start.await();
+                return node.rotate("t1", next, now.plus(Duration.ofDays(1)), now).outcome();
+            }));
+        }
+        start.countDown();
+
+        int rotated = 0;
+        for (Future<Outcome> f : results) {
+            if (f.get(10, TimeUnit.SECONDS) == Outcome.ROTATED) rotated++;
+        }
+        pool.shutdown();
+        assertEquals(1, rotated);
+    }
+
+    @Test
+    void purgeDropsExpiredTokens() {
+        Instant now = Instant.now();
+        nodeA.save(new RefreshToken("old", "f1", "a@dishdash.test", 0, now.minusSeconds(1), now.plusSeconds(60)));
+        nodeA.save(token("live", "f2", now));
+
+        nodeB.purgeExpired(now);
+
+        assertEquals(1, nodeA.size());
+    }
+
+    private static RefreshToken token(String hash, String family, Instant now) {
+        return new RefreshToken(hash, family, "a@dishdash.test", 0,
+                now.plus(Duration.ofDays(14)), now.plus(Duration.ofDays(30)));
+    }
+}
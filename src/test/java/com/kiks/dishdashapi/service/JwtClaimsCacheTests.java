@@ -0,0 +1,54 @@
+package com.kiks.dishdashapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtClaimsCacheTests {
+
+    private static JwtService.VerifiedClaims claims(String user, Instant expiresAt) {
+        return new JwtService.VerifiedClaims("jti-" + user, user, 1L, List.of("USER"), 0,
+                Instant.now(), expiresAt);
+    }
+
+    @Test
+    void entriesLiveUntilTheTokenExpires() throws InterruptedException {
+        JwtClaimsCache cache = new JwtClaimsCache(100);
+        JwtService.VerifiedClaims shortLived = claims("a", Instant.now().plusMillis(200));
+        cache.put("token-a", shortLived);
+
+        assertSame(shortLived, cache.get("token-a"));
+        Thread.sleep(300);
+        assertNull(cache.get("token-a"));
+
+        cache.put("token-b", claims("b", Instant.now().minusSeconds(1)));
+        assertNull(cache.get("token-b"));
+    }
+
+    @Test
+    void aFullCacheKeepsAdmittingAndStaysBounded() {
+        JwtClaimsCache cache = new JwtClaimsCache(100);
+        Instant exp = Instant.now().plusSeconds(600);
+        JwtService.VerifiedClaims hot = claims("hot", exp);
+        cache.put("hot", hot);
+
+        for (int i = 0; i < 10_000; i++) {
+            cache.put("cold-" + i, claims("cold-" + i, exp));
+            cache.get("hot");
+        }
+
+        assertSame(hot, cache.get("hot"));
+        assertTrue(cache.size() <= 100, "size " + cache.size());
+    }
+
+    @Test
+    void disabledCacheHoldsNothing() {
+        JwtClaimsCache cache = new JwtClaimsCache(0);
+        cache.put("token", claims("a", Instant.now().plusSeconds(60)));
+        assertNull(cache.get("token"));
+        assertEquals(0, cache.size());
+    }
+}
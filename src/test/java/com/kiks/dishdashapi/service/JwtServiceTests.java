@@ -0,0 +1,89 @@
+package com.kiks.dishdashapi.service;
+
+import com.kiks.dishdashapi.config.JwtKeyProperties;
+import com.kiks.dishdashapi.config.JwtKeyProperties.Key;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTests {
+
+    private static final String OLD = "T2xkU2lnbmluZ0tleUZvckRpc2hkYXNoUm90YXRpb25UZXN0cw==";
+    private static final String NEW = "TmV3U2lnbmluZ0tleUZvckRpc2hkYXNoUm90YXRpb25UZXN0cw==";
+
+    @Test
+    void tokensCarryTheActiveKid() {
+        JwtService jwt = service(new JwtKeyProperties("old", null, Map.of("old", new Key(OLD, null))));
+
+        String token = jwt.generateToken("a@dishdash.test");
+
+        assertEquals("old", Jwts.parserBuilder().setSigningKey(key(OLD)).build()
+                .parseClaimsJws(token).getHeader().getKeyId());
+        assertEquals("a@dishdash.test", jwt.extractUserName(token));
+    }
+
+    @Test
+    void retiredKeyVerifiesDuringGraceOnly() {
+        String oldToken = service(new JwtKeyProperties("old", null, Map.of("old", new Key(OLD, null))))
+                .generateToken("a@dishdash.test");
+
+        JwtService rotated = service(new JwtKeyProperties("new", Duration.ofMinutes(30), Map.of(
+                "new", new Key(NEW, null),
+                "old", new Key(OLD, Instant.now()))));
+        assertNotNull(rotated.verify(oldToken));
+        assertNotNull(rotated.verify(rotated.generateToken("b@dishdash.test")));
+
+        JwtService pastGrace = service(new JwtKeyProperties("new", Duration.ofMinutes(30), Map.of(
+                "new", new Key(NEW, null),
+                "old", new Key(OLD, Instant.now().minus(Duration.ofHours(1))))));
+        assertNull(pastGrace.verify(oldToken));
+    }
+
+    @Test
+    void unknownKidAndKidlessTokensFromOtherKeysAreRejected() {
+        JwtService jwt = service(new JwtKeyProperties("new", null, Map.of("new", new Key(NEW, null))));
+
+        String foreignKid = service(new JwtKeyProperties("other", null, Map.of("other", new Key(OLD, null))))
+                .generateToken("a@dishdash.test");
+        assertNull(jwt.verify(foreignKid));
+
+        // pre-rotation tokens have no kid and are checked against the active key
+        String kidless = Jwts.builder().setSubject("a@dishdash.test")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(key(NEW), SignatureAlgorithm.HS256).compact();
+        assertNotNull(jwt.verify(kidless));
+        String kidlessOld = Jwts.builder().setSubject("a@dishdash.test")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(key(OLD), SignatureAlgorithm.HS256).compact();
+        assertNull(jwt.verify(kidlessOld));
+    }
+
+    @Test
+    void misconfiguredRingFailsAtStartup() {
+        assertThrows(IllegalStateException.class,
+                () -> new JwtKeyRing(new JwtKeyProperties("missing", null, Map.of("old", new Key(OLD, null)))));
+        assertThrows(IllegalStateException.class,
+                () -> new JwtKeyRing(new JwtKeyProperties("old", null, Map.of("old", new Key(OLD, Instant.now())))));
+    }
+
+    private static JwtService service(JwtKeyProperties properties) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        return new JwtService(new JwtKeyRing(properties), new JwtClaimsCache(0),
+                new AuthEventJournal(false, "unused", DataSize.ofMegabytes(1), 1, registry), registry);
+    }
+
+    private static java.security.Key key(String secret) {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+    }
+}
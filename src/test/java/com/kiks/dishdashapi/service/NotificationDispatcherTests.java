@@ -0,0 +1,109 @@
+package com.kiks.dishdashapi.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * One worker and a sender that holds its first batch until released, so what queues up behind it
+ * is known when the worker drains again.
+ */
+class NotificationDispatcherTests {
+
+    private final MeterRegistry meters = new SimpleMeterRegistry();
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstSendStarted = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+
+    private final NotificationSender sender = batch -> {
+        firstSendStarted.countDown();
+        release.await(10, TimeUnit.SECONDS);
+        if (failuresLeft.getAndDecrement() > 0) throw new IllegalStateException("gateway down");
+        batches.add(batch.stream().map(Notification::recipient).toList());
+    };
+
+    private NotificationDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (dispatcher != null) dispatcher.shutdown();
+    }
+
+    private NotificationDispatcher dispatcher(int capacity, int maxAttempts) {
+        dispatcher = new NotificationDispatcher(sender, meters, capacity, 1, 3, maxAttempts, Duration.ofMillis(1));
+        return dispatcher;
+    }
+
+    private double counted(String name) {
+        return meters.get(name).counter().count();
+    }
+
+    private void awaitDelivered(double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (counted("notification.delivered") + counted("notification.dropped") < expected
+                && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void queuedNotificationsAreSentInBatches() throws Exception {
+        NotificationDispatcher d = dispatcher(100, 1);
+        assertTrue(d.enqueue("r0", "x"));
+        assertTrue(firstSendStarted.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i <= 7; i++) assertTrue(d.enqueue("r" + i, "x"));
+
+        release.countDown();
+        awaitDelivered(8);
+
+        assertEquals(List.of(List.of("r0"), List.of("r1", "r2", "r3"), List.of("r4", "r5", "r6"), List.of("r7")),
+                batches);
+        assertEquals(8, counted("notification.delivered"));
+    }
+
+    @Test
+    void aFailedBatchIsRetriedThenDropped() throws Exception {
+        failuresLeft.set(1);
+        NotificationDispatcher d = dispatcher(100, 2);
+        release.countDown();
+
+        assertTrue(d.enqueue("retried", "x"));
+        awaitDelivered(1);
+        assertEquals(List.of(List.of("retried")), batches);
+
+        failuresLeft.set(2);
+        assertTrue(d.enqueue("dropped", "x"));
+        awaitDelivered(2);
+        assertEquals(1, counted("notification.dropped"));
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    void aFullQueueRefusesInsteadOfWaiting() throws Exception {
+        NotificationDispatcher d = dispatcher(1, 1);
+        assertTrue(d.enqueue("sending", "x"));
+        assertTrue(firstSendStarted.await(10, TimeUnit.SECONDS));
+
+        assertTrue(d.enqueue("queued", "x"));
+        assertFalse(d.enqueue("refused", "x"));
+        assertEquals(1, counted("notification.rejected"));
+    }
+
+    @Test
+    void theLoggingSenderMasksTheRecipient() {
+        assertEquals("a***@example.com", LoggingNotificationSender.mask("alice@example.com"));
+        assertEquals("***", LoggingNotificationSender.mask("no-at-sign"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.kiks.dishdashapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OtpServiceTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final OtpService service = new OtpService(new InMemoryOtpStore(4),
+            new AuthEventJournal(false, "unused", DataSize.ofMegabytes(1), 1, registry), registry);
+
+    @Test
+    void codesAreRenderedAsSixDigits() {
+        assertEquals("000000", OtpService.format(0));
+        assertEquals("001234", OtpService.format(1234));
+        assertEquals("999999", OtpService.format(999_999));
+    }
+
+    @Test
+    void onlySixDigitCodesParse() {
+        assertEquals(1234, OtpService.parseCode("001234"));
+        assertEquals(1234, OtpService.parseCode(" 001234\n"));
+        assertEquals(OtpService.NO_CODE, OtpService.parseCode("1234"));
+        assertEquals(OtpService.NO_CODE, OtpService.parseCode("0012345"));
+        assertEquals(OtpService.NO_CODE, OtpService.parseCode("00123a"));
+        assertEquals(OtpService.NO_CODE, OtpService.parseCode("+01234"));
+        assertEquals(OtpService.NO_CODE, OtpService.parseCode(null));
+    }
+
+    @Test
+    void storedNoCodeNeverMatches() {
+        assertTrue(OtpStore.codesMatch(1234, 1234));
+        assertFalse(OtpStore.codesMatch(1234, 1235));
+        assertFalse(OtpStore.codesMatch(OtpService.NO_CODE, OtpService.NO_CODE));
+    }
+
+    @Test
+    void generatedCodesStayInRange() {
+        for (int i = 0; i < 10_000; i++) {
+            int code = service.generateAndStoreOtp("user" + i + "@x.com");
+            assertTrue(code >= 0 && code < 1_000_000, "code " + code);
+        }
+    }
+
+    @Test
+    void issuedCodeVerifiesOnceAndCooldownHoldsBackANewOne() {
+        int code = service.generateAndStoreOtp("a@x.com");
+
+        assertEquals(OtpService.NO_CODE, service.generateAndStoreOtp("a@x.com"));
+        assertNull(service.verifyOtpAndIssueResetToken("a@x.com", "not a code"));
+        assertNotNull(service.verifyOtpAndIssueResetToken("a@x.com", OtpService.format(code)));
+        assertNull(service.verifyOtpAndIssueResetToken("a@x.com", OtpService.format(code)));
+    }
+
+    @Test
+    void malformedInputUsesUpAttempts() {
+        int code = service.generateAndStoreOtp("a@x.com");
+        for (int i = 0; i < 5; i++) assertNull(service.verifyOtpAndIssueResetToken("a@x.com", "abc"));
+
+        assertNull(service.verifyOtpAndIssueResetToken("a@x.com", OtpService.format(code)));
+    }
+}
@@ -0,0 +1,131 @@
+package com.kiks.dishdashapi.service;
+
+import com.kiks.dishdashapi.config.Argon2CostProfile;
+import com.kiks.dishdashapi.config.TunedArgon2PasswordEncoder;
+import com.kiks.dishdashapi.model.User;
+import com.kiks.dishdashapi.model.UserPrincipal;
+import com.kiks.dishdashapi.repo.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PasswordUpgradeServiceTests {
+
+    @Autowired
+    private PasswordUpgradeService upgrades;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository repo;
+
+    @AfterEach
+    void cleanUp() {
+        repo.deleteAll();
+    }
+
+    @Test
+    void aRehashOnlyReplacesTheHashTheLoginSaw() {
+        userService.saveUser(user("rehash@x.com"));
+        UserPrincipal seenAtLogin = new UserPrincipal(repo.findByEmail("rehash@x.com"));
+
+        assertEquals("{rehashed}", upgrades.updatePassword(seenAtLogin, "{rehashed}").getPassword());
+        assertEquals("{rehashed}", repo.findByEmail("rehash@x.com").getPassword());
+        assertEquals(0, repo.findCredentialVersionByEmail("rehash@x.com").orElseThrow());
+    }
+
+    @Test
+    void aRehashLosesToAPasswordChangeSinceTheLogin() {
+        userService.saveUser(user("changed@x.com"));
+        UserPrincipal seenAtLogin = new UserPrincipal(repo.findByEmail("changed@x.com"));
+        assertTrue(userService.updatePassword("changed@x.com", "NewPassword1!"));
+        String changed = repo.findByEmail("changed@x.com").getPassword();
+
+        assertSame(seenAtLogin, upgrades.updatePassword(seenAtLogin, "{rehashed}"));
+        assertEquals(changed, repo.findByEmail("changed@x.com").getPassword());
+        assertEquals(1, repo.findCredentialVersionByEmail("changed@x.com").orElseThrow());
+    }
+
+    @Test
+    void onlyHashesBelowTheFloorAreUpgraded() {
+        TunedArgon2PasswordEncoder encoder = new TunedArgon2PasswordEncoder(
+                Argon2CostProfile.of(12_288, 3, 1), Argon2CostProfile.of(8_192, 2, 1));
+
+        assertTrue(encoder.upgradeEncoding(Argon2CostProfile.of(4_096, 3, 1).hash("pw").getResult()));
+        assertTrue(encoder.upgradeEncoding(Argon2CostProfile.of(12_288, 1, 1).hash("pw").getResult()));
+        // another node calibrated differently, but still above the floor
+        assertFalse(encoder.upgradeEncoding(Argon2CostProfile.of(8_192, 4, 1).hash("pw").getResult()));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("pw")));
+    }
+
+    @Test
+    void anUpgradeTurnedAwayByAFullQueueIsTriedAgainNextTime() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Map<String, Integer> encoded = new ConcurrentHashMap<>();
+        PasswordEncoder blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                encoded.merge(rawPassword.toString(), 1, Integer::sum);
+                return "{blocking}" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return false;
+            }
+        };
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocking, new SimpleMeterRegistry(), 1, 1, Duration.ofSeconds(10));
+        PasswordUpgradeService service = new PasswordUpgradeService(repo, encoder, event -> { });
+        try {
+            // one running, a full queue behind it, and one more that doesn't fit
+            for (int i = 0; i <= PasswordUpgradeService.QUEUE_CAPACITY + 1; i++) {
+                service.upgradeInBackground(new UserPrincipal(user("queued" + i + "@x.com")), "pw" + i);
+            }
+            String rejected = "pw" + (PasswordUpgradeService.QUEUE_CAPACITY + 1);
+            release.countDown();
+            awaitEncoded(encoded, PasswordUpgradeService.QUEUE_CAPACITY + 1);
+            assertNull(encoded.get(rejected));
+
+            service.upgradeInBackground(new UserPrincipal(user("queued" + (PasswordUpgradeService.QUEUE_CAPACITY + 1) + "@x.com")), rejected);
+            awaitEncoded(encoded, PasswordUpgradeService.QUEUE_CAPACITY + 2);
+            assertEquals(1, encoded.get(rejected));
+        } finally {
+            service.shutdown();
+            encoder.shutdown();
+        }
+    }
+
+    private static void awaitEncoded(Map<String, Integer> encoded, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (encoded.size() < count && System.nanoTime() < deadline) Thread.sleep(5);
+        assertEquals(count, encoded.size());
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setFullName("Test User");
+        user.setEmail(email);
+        user.setPassword("OldPassword1!");
+        user.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,175 @@
+package com.kiks.dishdashapi.service;
+
+import com.kiks.dishdashapi.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two unconnected in-memory H2 databases stand in for the primary and a replica that never
+ * catches up, so whichever database answered a read is visible from its result.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rw-primary;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "datasource.replica.enabled=true",
+        "datasource.replica.url=" + ReadReplicaRoutingTests.REPLICA_URL,
+        "datasource.replica.read-your-writes-window=300ms",
+        // built from the replica at startup, before the schema below exists
+        "auth.email-filter.enabled=false"
+})
+class ReadReplicaRoutingTests {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:rw-replica;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private MyUserDetailsService userDetailsService;
+    @Autowired
+    private EmailExistenceFilter emailFilter;
+    @Autowired
+    private CredentialVersions credentialVersions;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // direct connections, around the pools
+    private final JdbcTemplate primary = new JdbcTemplate(
+            new DriverManagerDataSource("jdbc:h2:mem:rw-primary;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", ""));
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @BeforeEach
+    void copySchemaToReplica() {
+        Integer tables = replica.queryForObject(
+                "select count(*) from information_schema.tables where table_schema = 'PUBLIC' and table_name = 'USERS'", Integer.class);
+        if (tables != null && tables > 0) return;
+        for (String statement : primary.queryForList("SCRIPT NODATA", String.class)) replica.execute(statement);
+    }
+
+    @Test
+    void registrationIsWrittenToThePrimaryOnly() {
+        userService.saveUser(user("writer@x.com"));
+
+        assertEquals(1, count(primary, "writer@x.com"));
+        assertEquals(0, count(replica, "writer@x.com"));
+    }
+
+    @Test
+    void lookupsReadTheReplica() {
+        replica.update("insert into users (id, full_name, email, password, date_of_birth, credential_version, "
+                + "enabled, is_verified, created_at) values (100000, 'Replica Only', 'replica@x.com', 'x', "
+                + "DATE '1990-01-01', 1, true, false, CURRENT_TIMESTAMP)");
+
+        assertTrue(userService.existByEmail("replica@x.com"));
+        assertEquals("replica@x.com", userDetailsService.loadUserByUsername("replica@x.com").getUsername());
+    }
+
+    @Test
+    void aFreshRegistrationIsReadFromThePrimaryUntilTheWindowCloses() throws InterruptedException {
+        userService.saveUser(user("fresh@x.com"));
+
+        // the replica doesn't have the row, so these can only have been answered by the primary
+        double missed = missedReads();
+        assertTrue(userService.existByEmail("fresh@x.com"));
+        assertEquals("fresh@x.com", userDetailsService.loadUserByUsername("fresh@x.com").getUsername());
+        assertEquals(missed, missedReads());
+
+        Thread.sleep(400);
+
+        // the replica is asked first now, and its miss is repeated on the primary
+        assertTrue(userService.existByEmail("fresh@x.com"));
+        assertEquals(missed + 1, missedReads());
+    }
+
+    @Test
+    void aRegistrationOnAnotherNodeIsFoundOnThePrimary() {
+        // no UserChangedEvent on this node, so nothing is pinned here
+        primary.update("insert into users (id, full_name, email, password, date_of_birth, credential_version, "
+                + "enabled, is_verified, created_at) values (100003, 'Other Node', 'othernode@x.com', 'x', "
+                + "DATE '1990-01-01', 0, true, false, CURRENT_TIMESTAMP)");
+
+        assertEquals("othernode@x.com", userDetailsService.loadUserByUsername("othernode@x.com").getUsername());
+        assertTrue(credentialVersions.isCurrent("othernode@x.com", 0));
+    }
+
+    @Test
+    void accountStatusChangesOnlyWriteTheStatusColumns() {
+        userService.saveUser(user("status@x.com"));
+        // a password change the replica hasn't seen yet
+        primary.update("update users set password = 'changed', credential_version = 1 where email = 'status@x.com'");
+
+        assertTrue(userService.updateAccountStatus("status@x.com", false, null));
+        assertFalse(userService.updateAccountStatus("nobody@x.com", false, null));
+
+        assertEquals(Boolean.FALSE, primary.queryForObject(
+                "select enabled from users where email = 'status@x.com'", Boolean.class));
+        assertEquals("changed", primary.queryForObject(
+                "select password from users where email = 'status@x.com'", String.class));
+        assertEquals(1, primary.queryForObject(
+                "select credential_version from users where email = 'status@x.com'", Integer.class));
+    }
+
+    @Test
+    void loginAndRefreshSeeADisableMadeOnAnotherNode() {
+        for (JdbcTemplate db : new JdbcTemplate[] {primary, replica}) {
+            db.update("insert into users (id, full_name, email, password, date_of_birth, credential_version, "
+                    + "enabled, is_verified, created_at) values (100001, 'Elsewhere', 'elsewhere@x.com', 'x', "
+                    + "DATE '1990-01-01', 1, true, false, CURRENT_TIMESTAMP)");
+        }
+        assertTrue(userDetailsService.loadUserByUsername("elsewhere@x.com").isEnabled());
+
+        // another node disables the account; the replica hasn't caught up and this node's cache never heard of it
+        primary.update("update users set enabled = false where email = 'elsewhere@x.com'");
+
+        assertTrue(userDetailsService.loadUserByUsername("elsewhere@x.com").isEnabled());
+        assertFalse(userDetailsService.loadUserFromPrimary("elsewhere@x.com").isEnabled());
+        // and the cache now holds the primary's answer
+        assertFalse(userDetailsService.loadUserByUsername("elsewhere@x.com").isEnabled());
+    }
+
+    @Test
+    void theEmailFilterIsBuiltFromThePrimary() {
+        primary.update("insert into users (id, full_name, email, password, date_of_birth, credential_version, "
+                + "enabled, is_verified, created_at) values (100002, 'Primary Only', 'primary@x.com', 'x', "
+                + "DATE '1990-01-01', 1, true, false, CURRENT_TIMESTAMP)");
+
+        emailFilter.rebuild();
+
+        assertTrue(emailFilter.mightExist("primary@x.com"));
+    }
+
+    @Test
+    void eachPoolReportsItsOwnMetrics() {
+        // pools start on first use
+        userService.saveUser(user("metrics@x.com"));
+        userService.existByEmail("nobody@x.com");
+
+        assertNotNull(meterRegistry.find("hikaricp.connections.max").tag("pool", "primary").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections.max").tag("pool", "replica").gauge());
+    }
+
+    private double missedReads() {
+        return meterRegistry.get("datasource.replica.missed.reads").counter().count();
+    }
+
+    private static int count(JdbcTemplate db, String email) {
+        Integer n = db.queryForObject("select count(*) from users where email = ?", Integer.class, email);
+        return (n == null) ? 0 : n;
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setFullName("Test User");
+        user.setEmail(email);
+        user.setPassword("CorrectHorse1!");
+        user.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,138 @@
+package com.kiks.dishdashapi.service;
+
+import com.kiks.dishdashapi.model.User;
+import com.kiks.dishdashapi.model.UserPrincipal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshTokenServiceTests {
+
+    private static final String SUCCESSOR_KEY = "VGVzdE9ubHlSZWZyZXNoU3VjY2Vzc29yS2V5";
+
+    private final Map<String, User> users = new HashMap<>();
+    private InMemoryRefreshTokenStore store;
+    private RefreshTokenService service;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryRefreshTokenStore();
+        service = service(Duration.ofDays(14), Duration.ofDays(30), Duration.ZERO);
+        users.put("a@dishdash.test", user("a@dishdash.test", 0));
+    }
+
+    @Test
+    void refreshRotatesTheToken() {
+        String first = service.issue(principal("a@dishdash.test"));
+
+        RefreshTokenService.Refreshed refreshed = service.refresh(first);
+
+        assertNotNull(refreshed);
+        assertEquals("a@dishdash.test", refreshed.principal().getUsername());
+        assertNotEquals(first, refreshed.refreshToken());
+        assertNotNull(service.refresh(refreshed.refreshToken()));
+    }
+
+    @Test
+    void reusingAConsumedTokenRevokesTheSession() {
+        String first = service.issue(principal("a@dishdash.test"));
+        String second = service.refresh(first).refreshToken();
+
+        // replayed copy of the first token
+        assertNull(service.refresh(first));
+        // and the legitimate successor is now dead too
+        assertNull(service.refresh(second));
+    }
+
+    @Test
+    void aRetryWithinTheGraceGetsTheSameSuccessor() {
+        RefreshTokenService lenient = service(Duration.ofDays(14), Duration.ofDays(30), Duration.ofMinutes(1));
+        String first = lenient.issue(principal("a@dishdash.test"));
+
+        String second = lenient.refresh(first).refreshToken();
+        assertEquals(second, lenient.refresh(first).refreshToken());
+
+        // once the grace is over the same replay is reuse, and ends the session
+        assertNull(service.refresh(first));
+        assertNull(lenient.refresh(second));
+    }
+
+    @Test
+    void aMissingSuccessorKeyFailsStartupUnlessAllowed() {
+        MyUserDetailsService users = new MyUserDetailsService(null, null, new SimpleMeterRegistry(), false, 0, Duration.ZERO);
+        Duration day = Duration.ofDays(1);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> new RefreshTokenService(
+                store, users, new SimpleMeterRegistry(), day, day, day, " ", true));
+        assertTrue(e.getMessage().contains("refresh.successor-key"));
+        assertNotNull(new RefreshTokenService(store, users, new SimpleMeterRegistry(), day, day, day, "", false));
+        assertNotNull(new RefreshTokenService(store, users, new SimpleMeterRegistry(), day, day, day, SUCCESSOR_KEY, true));
+    }
+
+    @Test
+    void otherSessionsSurviveAReuse() {
+        String mine = service.issue(principal("a@dishdash.test"));
+        String other = service.issue(principal("a@dishdash.test"));
+
+        service.refresh(mine);
+        assertNull(service.refresh(mine));
+
+        assertNotNull(service.refresh(other));
+    }
+
+    @Test
+    void passwordChangeEndsTheSession() {
+        String token = service.issue(principal("a@dishdash.test"));
+
+        users.put("a@dishdash.test", user("a@dishdash.test", 1));
+
+        assertNull(service.refresh(token));
+    }
+
+    @Test
+    void expiredAndUnknownTokensAreRejected() {
+        RefreshTokenService shortLived = service(Duration.ofMillis(-1), Duration.ofDays(30), Duration.ZERO);
+        String expired = shortLived.issue(principal("a@dishdash.test"));
+
+        assertNull(shortLived.refresh(expired));
+        assertNull(service.refresh("not-a-token"));
+        assertNull(service.refresh(null));
+    }
+
+    @Test
+    void storeOnlyKeepsHashes() {
+        String token = service.issue(principal("a@dishdash.test"));
+
+        RefreshTokenStore.Rotation rotation = store.rotate(RefreshTokenService.hash(token), "next", java.time.Instant.MAX,
+                java.time.Instant.now());
+        assertEquals(RefreshTokenStore.Outcome.ROTATED, rotation.outcome());
+        assertNotEquals(token, rotation.previous().tokenHash());
+    }
+
+    private RefreshTokenService service(Duration ttl, Duration maxSession, Duration reuseGrace) {
+        return new RefreshTokenService(store, email -> {
+            User u = users.get(email);
+            if (u == null) throw new UsernameNotFoundException(email);
+            return new UserPrincipal(u);
+        }, new SimpleMeterRegistry(), ttl, maxSession, reuseGrace, SUCCESSOR_KEY);
+    }
+
+    private UserPrincipal principal(String email) {
+        return new UserPrincipal(users.get(email));
+    }
+
+    private static User user(String email, int credentialVersion) {
+        User u = new User();
+        u.setId(1L);
+        u.setEmail(email);
+        u.setCredentialVersion(credentialVersion);
+        return u;
+    }
+}
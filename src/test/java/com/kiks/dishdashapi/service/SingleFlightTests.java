@@ -0,0 +1,153 @@
+package com.kiks.dishdashapi.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTests {
+
+    private static final int CALLERS = 256;
+
+    private final MeterRegistry meters = new SimpleMeterRegistry();
+    private final SingleFlight<String, String> flights = new SingleFlight<>(meters, "test.calls");
+
+    private double counted(String outcome) {
+        return meters.get("test.calls").tag("outcome", outcome).counter().count();
+    }
+
+    // holds the running call until every other caller is waiting on it
+    private Supplier<String> blockUntilAllJoined(AtomicInteger runs, Supplier<String> result) {
+        return () -> {
+            runs.incrementAndGet();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (counted("coalesced") < CALLERS - 1 && System.nanoTime() < deadline) Thread.yield();
+            return result.get();
+        };
+    }
+
+    private List<Future<String>> callConcurrently(ExecutorService pool, String key, Supplier<String> call) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return flights.execute(key, call);
+            }));
+        }
+        start.countDown();
+        return results;
+    }
+
+    @Test
+    void concurrentCallersShareOneCall() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> results = callConcurrently(pool, "a@x.com",
+                    blockUntilAllJoined(runs, () -> "principal"));
+            for (Future<String> r : results) assertEquals("principal", r.get(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, runs.get());
+        assertEquals(1, counted("executed"));
+        assertEquals(CALLERS - 1, counted("coalesced"));
+        assertEquals(0, flights.inFlight());
+    }
+
+    @Test
+    void aFailureReachesEveryWaiterAndLeavesNothingBehind() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        IllegalStateException failure = new IllegalStateException("database down");
+        try (ExecutorService pool = Executors.newFixedThreadPool(CALLERS)) {
+            List<Future<String>> results = callConcurrently(pool, "a@x.com",
+                    blockUntilAllJoined(runs, () -> { throw failure; }));
+            for (Future<String> r : results) {
+                Exception e = assertThrows(Exception.class, () -> r.get(10, TimeUnit.SECONDS));
+                assertSame(failure, e.getCause());
+            }
+        }
+
+        assertEquals(1, runs.get());
+        assertEquals(0, flights.inFlight());
+        // nothing is remembered: the next call runs again
+        assertEquals("recovered", flights.execute("a@x.com", () -> "recovered"));
+        assertEquals(2, counted("executed"));
+    }
+
+    @Test
+    void differentKeysDoNotWaitForEachOther() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> slow = pool.submit(() -> flights.execute("slow@x.com", () -> {
+                awaitQuietly(release);
+                return "slow";
+            }));
+            while (flights.inFlight() == 0) Thread.yield();
+
+            assertEquals("fast", flights.execute("fast@x.com", () -> "fast"));
+            assertFalse(slow.isDone());
+            release.countDown();
+            assertEquals("slow", slow.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(0, counted("coalesced"));
+    }
+
+    @Test
+    void forgottenKeyStartsANewCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> stale = pool.submit(() -> flights.execute("a@x.com", () -> {
+                awaitQuietly(release);
+                return "before update";
+            }));
+            while (flights.inFlight() == 0) Thread.yield();
+
+            flights.forget("a@x.com");
+            assertEquals("after update", flights.execute("a@x.com", () -> "after update"));
+
+            release.countDown();
+            assertEquals("before update", stale.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(2, counted("executed"));
+        assertEquals(0, flights.inFlight());
+    }
+
+    @Test
+    void anInterruptedWaiterGivesUpWithoutCancellingTheCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = pool.submit(() -> flights.execute("a@x.com", () -> {
+                awaitQuietly(release);
+                return "principal";
+            }));
+            while (flights.inFlight() == 0) Thread.yield();
+
+            Thread.currentThread().interrupt();
+            assertThrows(RuntimeException.class, () -> flights.execute("a@x.com", () -> "unused"));
+            assertTrue(Thread.interrupted());
+
+            release.countDown();
+            assertEquals("principal", leader.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(0, flights.inFlight());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.kiks.dishdashapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTests {
+
+    @Test
+    void itemsFireOnTheirTickAtEveryLevel() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 0);
+        Random random = new Random(42);
+        Map<Long, Long> firedAt = new HashMap<>();
+
+        // level 0, level 1, and overflow entries, including ones just past what level 1 holds
+        long[] deadlines = new long[2000];
+        for (int i = 0; i < deadlines.length; i++) deadlines[i] = 1 + random.nextInt(20_000);
+        deadlines[0] = 4_032;
+        deadlines[1] = 4_095;
+        deadlines[2] = 4_097;
+        for (long deadline : deadlines) wheel.schedule(deadline, deadline);
+
+        for (long now = 1; now <= 20_000; now++) {
+            long tick = now;
+            wheel.advance(now, deadline -> firedAt.putIfAbsent(deadline, tick));
+        }
+
+        for (long deadline : deadlines) assertEquals(deadline, firedAt.get(deadline), "deadline " + deadline);
+    }
+
+    @Test
+    void anItemScheduledLaterStillFiresOnTime() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 0);
+        long[] fired = new long[1];
+
+        wheel.advance(1_000, item -> fail());
+        wheel.schedule("late", 1_000 + 10 * 4_090);
+        for (long now = 1_000; fired[0] == 0; now += 10) {
+            long at = now;
+            wheel.advance(now, item -> fired[0] = at);
+        }
+
+        assertEquals(1_000 + 10 * 4_090, fired[0]);
+    }
+}
@@ -0,0 +1,116 @@
+package com.kiks.dishdashapi.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two services on one in-memory H2 revocation table stand in for two replicas.
+ */
+class TokenRevocationServiceTests {
+
+    private JdbcRevocationStore store;
+    private MeterRegistry metersA;
+    private TokenRevocationService nodeA;
+    private TokenRevocationService nodeB;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource ds = new DriverManagerDataSource(
+                "jdbc:h2:mem:revocation-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        store = new JdbcRevocationStore(new JdbcTemplate(ds), true, Duration.ZERO);
+        store.initSchema();
+
+        metersA = new SimpleMeterRegistry();
+        nodeA = node(metersA, 16);
+        nodeB = node(new SimpleMeterRegistry(), 16);
+    }
+
+    private TokenRevocationService node(MeterRegistry meters, int expectedEntries) {
+        TokenRevocationService node = new TokenRevocationService(store, meters, expectedEntries, Duration.ofSeconds(30));
+        node.load();
+        return node;
+    }
+
+    @Test
+    void revokedTokenIsRefusedAndOthersAreNot() {
+        JwtService.VerifiedClaims token = claims("jti-1", "a@x.com", Instant.now());
+        nodeA.revokeToken("jti-1", token.expiresAt());
+
+        assertTrue(nodeA.isRevoked(token));
+        assertFalse(nodeA.isRevoked(claims("jti-2", "a@x.com", Instant.now())));
+        // tokens minted without a jti can only be revoked through their user
+        assertFalse(nodeA.isRevoked(claims(null, "a@x.com", Instant.now())));
+    }
+
+    @Test
+    void userRevocationRefusesOnlyTokensIssuedBeforeIt() {
+        Instant issued = Instant.now().minusSeconds(5);
+        nodeA.revokeUser("User@X.com");
+
+        assertTrue(nodeA.isRevoked(claims("old", "user@x.com", issued)));
+        assertTrue(nodeA.isRevoked(claims(null, "user@x.com", issued)));
+        assertFalse(nodeA.isRevoked(claims("new", "user@x.com", Instant.now().plusSeconds(5))));
+        assertFalse(nodeA.isRevoked(claims("other", "other@x.com", issued)));
+    }
+
+    @Test
+    void revocationOnOneNodeReachesAnotherOnSync() {
+        JwtService.VerifiedClaims token = claims("jti-1", "a@x.com", Instant.now());
+        nodeA.revokeToken("jti-1", token.expiresAt());
+        nodeA.revokeUser("b@x.com");
+
+        assertFalse(nodeB.isRevoked(token));
+        nodeB.sync();
+        assertTrue(nodeB.isRevoked(token));
+        assertTrue(nodeB.isRevoked(claims("jti-2", "b@x.com", Instant.now().minusSeconds(5))));
+    }
+
+    @Test
+    void restartedNodeReloadsLiveRevocations() {
+        JwtService.VerifiedClaims token = claims("jti-1", "a@x.com", Instant.now());
+        nodeA.revokeToken("jti-1", token.expiresAt());
+
+        assertTrue(node(new SimpleMeterRegistry(), 16).isRevoked(token));
+    }
+
+    @Test
+    void entriesDropOutAtTokenExpiry() {
+        JwtService.VerifiedClaims token = claims("jti-1", "a@x.com", Instant.now().minus(JwtService.TOKEN_TTL));
+        nodeA.revokeToken("jti-1", Instant.now().minusMillis(1));
+        assertEquals(1.0, metersA.get("auth.revocation.entries").gauge().value());
+
+        nodeA.sync();
+
+        assertEquals(0.0, metersA.get("auth.revocation.entries").gauge().value());
+        assertFalse(nodeA.isRevoked(token));
+        // ...and from the table, so a restart doesn't bring it back
+        assertTrue(store.loadSince(Instant.EPOCH, Instant.EPOCH).isEmpty());
+    }
+
+    @Test
+    void indexStaysExactBeyondItsExpectedSize() {
+        Instant expiresAt = Instant.now().plus(JwtService.TOKEN_TTL);
+        for (int i = 0; i < 2_000; i++) nodeA.revokeToken("revoked-" + i, expiresAt);
+
+        for (int i = 0; i < 2_000; i++) {
+            assertTrue(nodeA.isRevoked(claims("revoked-" + i, "a@x.com", Instant.now())));
+            // bloom false positives are settled by the exact set
+            assertFalse(nodeA.isRevoked(claims("live-" + i, "a@x.com", Instant.now())));
+        }
+    }
+
+    private static JwtService.VerifiedClaims claims(String tokenId, String username, Instant issuedAt) {
+        return new JwtService.VerifiedClaims(tokenId, username, null, null, null,
+                issuedAt, issuedAt.plus(JwtService.TOKEN_TTL));
+    }
+}